@@ -0,0 +1,42 @@
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Writes each answer in the binary format of PolynomialCodec, one after another, with nothing in
+ * between. Records that couldn't be computed, and errors that aren't part of any record, are written as
+ * a polynomial with no terms, so the n-th polynomial in the output always belongs to the n-th record.
+ * Roots are not written, and neither are validations, which have no answer.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class BinaryResultSink extends BufferedResultSink {
+	
+	public BinaryResultSink(WritableByteChannel channel){
+		super(channel);
+	}
+	
+	byte[] encodeResult(Polynomial poly, RootFinder.Roots roots){
+		if(!poly.isValid())
+			return empty();
+		return toBytes(PolynomialCodec.encode(PackedPolynomial.fromList(poly.getAnswerPolynomial())));
+	}
+	
+	byte[] encodeError(String message){
+		return empty();
+	}
+	
+	byte[] encodeValidation(int recordNumber, Polynomial poly){
+		return new byte[0];
+	}
+	
+	static byte[] empty(){
+		return toBytes(PolynomialCodec.encode(new PackedPolynomial(new int[0], new double[0], 0)));
+	}
+	
+	static byte[] toBytes(ByteBuffer buffer){
+		byte[] bytes = new byte[buffer.remaining()];
+		buffer.get(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,254 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A ResultSink that writes on its own thread, so that the threads computing results never wait on the
+ * output or on each other for it.
+ * 
+ * Results go into a bounded queue. The writer thread takes them off in batches, encodes them into a large
+ * buffer, and only writes the buffer to the channel when it fills up or the queue runs dry. If the output
+ * can't keep up, the queue fills and result() waits for room.
+ * 
+ * Subclasses only decide how a single result is encoded.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public abstract class BufferedResultSink implements ResultSink {
+	
+	//The default sizes, for a sink writing a whole file or standard output
+	static final int QUEUE_SIZE = 1024;
+	static final int BUFFER_SIZE = 1 << 20;
+	
+	/**
+	 * One result or error waiting to be written. The entry with every field null tells the writer to stop.
+	 * A positive recordNumber marks the validation of that record rather than its result.
+	 */
+	static class Entry {
+		Polynomial poly;
+		RootFinder.Roots roots;
+		String error;
+		int recordNumber;
+		
+		Entry(Polynomial poly, RootFinder.Roots roots, String error){
+			this.poly = poly;
+			this.roots = roots;
+			this.error = error;
+		}
+		
+		Entry(int recordNumber, Polynomial poly){
+			this(poly, null, null);
+			this.recordNumber = recordNumber;
+		}
+		
+		boolean isEnd(){
+			return poly == null && error == null;
+		}
+	}
+	
+	WritableByteChannel channel;
+	ArrayBlockingQueue<Entry> queue;
+	ByteBuffer buffer;
+	Thread writer;
+	boolean closed = false;
+	
+	//The first write failure, reported back on the next call into the sink
+	volatile IOException failure;
+	
+	/**
+	 * Starts the writer thread with the default queue and buffer sizes. The sink owns the channel and
+	 * closes it when the sink is closed.
+	 * 
+	 * @param channel : Where the encoded results are written.
+	 */
+	public BufferedResultSink(WritableByteChannel channel){
+		this(channel, QUEUE_SIZE, BUFFER_SIZE);
+	}
+	
+	/**
+	 * Starts the writer thread. The sink owns the channel and closes it when the sink is closed.
+	 * 
+	 * @param channel : Where the encoded results are written.
+	 * @param queueSize : The number of results that can wait to be written.
+	 * @param bufferSize : The number of bytes collected before they're written to the channel.
+	 */
+	public BufferedResultSink(WritableByteChannel channel, int queueSize, int bufferSize){
+		this.channel = channel;
+		queue = new ArrayBlockingQueue<Entry>(queueSize);
+		buffer = ByteBuffer.allocate(bufferSize);
+		writer = new Thread(this::writeLoop, getClass().getSimpleName() + "-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+	
+	/**
+	 * Encodes a result to be written.
+	 * 
+	 * @param poly : The computed Polynomial.
+	 * @param roots : The roots of its answer, or null.
+	 * @return : The bytes to write.
+	 */
+	abstract byte[] encodeResult(Polynomial poly, RootFinder.Roots roots);
+	
+	/**
+	 * Encodes an error that isn't part of any Polynomial.
+	 * 
+	 * @param message : The error message.
+	 * @return : The bytes to write.
+	 */
+	abstract byte[] encodeError(String message);
+	
+	/**
+	 * Encodes whether a record is valid, along with its errors.
+	 * 
+	 * @param recordNumber : The position of the record in the input, starting at 1.
+	 * @param poly : The Polynomial of the record, already parsed.
+	 * @return : The bytes to write.
+	 */
+	abstract byte[] encodeValidation(int recordNumber, Polynomial poly);
+	
+	/**
+	 * Computes the answer on the calling thread if that hasn't happened yet (the Polynomial may be lazy),
+	 * so the writer thread only ever formats it.
+	 */
+	public void result(Polynomial poly, RootFinder.Roots roots) throws IOException{
+		poly.compute();
+		put(new Entry(poly, roots, null));
+	}
+	
+	/**
+	 * Parses the record on the calling thread, so the writer thread only ever formats its errors.
+	 */
+	public void validated(int recordNumber, Polynomial poly) throws IOException{
+		poly.parse();
+		put(new Entry(recordNumber, poly));
+	}
+	
+	public void error(String message) throws IOException{
+		put(new Entry(null, null, message));
+	}
+	
+	public void close() throws IOException{
+		if(closed)
+			return;
+		closed = true;
+		put(new Entry(null, null, null));
+		try{
+			writer.join();
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+		finally{
+			channel.close();
+		}
+		checkFailure();
+	}
+	
+	void put(Entry entry) throws IOException{
+		checkFailure();
+		try{
+			queue.put(entry);
+		}
+		catch(InterruptedException e){
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException();
+		}
+	}
+	
+	void checkFailure() throws IOException{
+		if(failure != null)
+			throw failure;
+	}
+	
+	/**
+	 * Runs on the writer thread. Encodes every entry in the queue, writing the buffer whenever it fills
+	 * and once more when the queue has been emptied. After a failed write, entries are still taken off
+	 * the queue so that nobody waits forever on it, but nothing more is written. An exception thrown
+	 * while encoding is recorded as a failure the same way.
+	 */
+	void writeLoop(){
+		ArrayList<Entry> batch = new ArrayList<Entry>();
+		try{
+			while(true){
+				batch.add(queue.take());
+				queue.drainTo(batch);
+				try{
+					for(Entry entry : batch){
+						if(entry.isEnd()){
+							if(failure == null)
+								flush();
+							return;
+						}
+						if(failure == null)
+							write(encode(entry));
+					}
+					if(queue.isEmpty() && failure == null)
+						flush();
+				}
+				catch(IOException e){
+					failure = e;
+				}
+				catch(RuntimeException e){
+					failure = new IOException("Could not encode a result: " + e, e);
+				}
+				batch.clear();
+			}
+		}
+		catch(InterruptedException e){
+			//Only happens if someone else interrupts the writer, there's nothing left to do but stop
+		}
+	}
+	
+	byte[] encode(Entry entry){
+		if(entry.error != null)
+			return encodeError(entry.error);
+		if(entry.recordNumber > 0)
+			return encodeValidation(entry.recordNumber, entry.poly);
+		return encodeResult(entry.poly, entry.roots);
+	}
+	
+	void write(byte[] bytes) throws IOException{
+		if(bytes.length > buffer.remaining())
+			flush();
+		if(bytes.length > buffer.capacity()){
+			ByteBuffer large = ByteBuffer.wrap(bytes);
+			while(large.hasRemaining())
+				channel.write(large);
+		}
+		else
+			buffer.put(bytes);
+	}
+	
+	void flush() throws IOException{
+		buffer.flip();
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+	
+	/**
+	 * @return : A channel that writes to System.out, and only flushes it when closed, so that System.out
+	 * stays usable after a sink writing to it is closed.
+	 */
+	static WritableByteChannel standardOutput(){
+		WritableByteChannel out = Channels.newChannel(System.out);
+		return new WritableByteChannel(){
+			public int write(ByteBuffer src) throws IOException{
+				return out.write(src);
+			}
+			public boolean isOpen(){
+				return true;
+			}
+			public void close(){
+				System.out.flush();
+			}
+		};
+	}
+}
@@ -0,0 +1,170 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * A long-running server that accepts three-line records (first polynomial, second polynomial and
+ * operation) over a local socket, and answers each one with the same output Project1 would print.
+ * 
+ * Keeping the JVM alive between jobs means every record after the first few runs on code that has
+ * already been compiled by the JIT, instead of paying startup and warmup for every input file.
+ * 
+ * The address is either a port number, in which case the server listens on the loopback interface,
+ * or a file path, in which case a Unix-domain socket is created at that path.
+ * 
+ * Each connection is handled on its own thread. A client may send many records without waiting for
+ * answers; these are processed in order, and the connection's TextResultSink writes the answers in
+ * batches whenever it catches up. If a client stops reading, its socket buffer fills up, the sink's queue
+ * fills behind it, and the server stops reading that client's records until there is room again.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class CalculatorServer {
+	
+	//The largest number of connections that are handled at once. Further clients wait to be accepted.
+	static final int MAX_CONNECTIONS = 256;
+	
+	//Each connection's sink is much smaller than the default, so that MAX_CONNECTIONS of them only take
+	//16 MB of buffers between them
+	static final int CONNECTION_QUEUE_SIZE = 64;
+	static final int CONNECTION_BUFFER_SIZE = 1 << 16;
+	
+	String address;
+	ServerSocketChannel serverChannel;
+	Semaphore connectionPermits = new Semaphore(MAX_CONNECTIONS);
+	ExecutorService connectionThreads = Executors.newCachedThreadPool();
+	
+	/**
+	 * Creates a server for the given address. Nothing is opened until serve is called.
+	 * 
+	 * @param address : A port number for a loopback TCP socket, or a path for a Unix-domain socket.
+	 */
+	public CalculatorServer(String address){
+		this.address = address;
+	}
+	
+	public static void main(String[] args){
+		if(args.length != 1){
+			System.out.println("Usage: java CalculatorServer <port | socket path>");
+			return;
+		}
+		try{
+			new CalculatorServer(args[0]).serve();
+		}
+		catch(IOException e){
+			System.out.println("Could not start the server on '" + args[0] + "': " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Opens the socket and accepts connections until the server is closed.
+	 * 
+	 * @throws IOException : If the socket could not be opened.
+	 */
+	public void serve() throws IOException{
+		serverChannel = open(address);
+		try{
+			while(serverChannel.isOpen()){
+				//Waits for a free slot before accepting, so that a flood of clients queues up in the
+				//socket backlog instead of in the server's memory.
+				connectionPermits.acquireUninterruptibly();
+				SocketChannel client;
+				try{
+					client = serverChannel.accept();
+				}
+				catch(IOException e){
+					connectionPermits.release();
+					if(!serverChannel.isOpen())
+						break;
+					throw e;
+				}
+				connectionThreads.execute(() -> handle(client));
+			}
+		}
+		finally{
+			close();
+		}
+	}
+	
+	/**
+	 * Stops accepting connections. Connections that are already open are allowed to finish.
+	 */
+	public void close() throws IOException{
+		if(serverChannel != null)
+			serverChannel.close();
+		connectionThreads.shutdown();
+		
+		//A Unix-domain socket leaves its file behind, which would stop the next server from binding
+		if(!isPort(address))
+			Files.deleteIfExists(Path.of(address));
+	}
+	
+	/**
+	 * Reads records from one client until it closes its side of the connection. If a record fails in a way
+	 * the calculator doesn't expect, the client is told why before the connection is closed.
+	 * 
+	 * @param client : The connection to the client.
+	 */
+	void handle(SocketChannel client){
+		try(SocketChannel channel = client;
+				BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel)));
+				ResultSink sink = new TextResultSink(channel, CONNECTION_QUEUE_SIZE, CONNECTION_BUFFER_SIZE)){
+			try{
+				String line = in.readLine();
+				while(line != null){
+					Project1.processRecord(line, in.readLine(), in.readLine(), sink, false);
+					line = in.readLine();
+				}
+			}
+			catch(RuntimeException | Error e){
+				sink.error("The server could not finish a record and closed the connection: " + e);
+			}
+		}
+		catch(IOException e){
+			//The client went away, there's nobody left to report the error to
+		}
+		finally{
+			connectionPermits.release();
+		}
+	}
+	
+	/**
+	 * Opens a server socket for the address, which is either a port number or a socket file path.
+	 * 
+	 * @param address : The port number or socket path.
+	 * @return : The bound server socket.
+	 * @throws IOException : If the socket could not be bound.
+	 */
+	static ServerSocketChannel open(String address) throws IOException{
+		ServerSocketChannel channel;
+		SocketAddress socketAddress;
+		if(isPort(address)){
+			channel = ServerSocketChannel.open();
+			socketAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address));
+		}
+		else{
+			channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+			socketAddress = UnixDomainSocketAddress.of(address);
+		}
+		channel.bind(socketAddress, MAX_CONNECTIONS);
+		return channel;
+	}
+	
+	static boolean isPort(String address){
+		return address.matches("[0-9]+");
+	}
+}
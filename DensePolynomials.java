@@ -0,0 +1,124 @@
+/**
+ * Arithmetic on polynomials stored as dense arrays of coefficients, where a[i] is the coefficient of
+ * x^i. This is the form used by RootFinder and Interpolator, where every power up to the degree is
+ * present anyway and there's no need to store exponents.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class DensePolynomials {
+	
+	//Below this many coefficients, the schoolbook product is faster than splitting with Karatsuba
+	static final int KARATSUBA_THRESHOLD = 32;
+	
+	/**
+	 * Multiplies two polynomials using Karatsuba's method, which takes three half-size products instead
+	 * of four, for O(n^1.585) time.
+	 * 
+	 * @param a : The first polynomial's coefficients.
+	 * @param b : The second polynomial's coefficients.
+	 * @return : The product's coefficients, a.length + b.length - 1 of them (none if either is empty).
+	 */
+	public static double[] multiply(double[] a, double[] b){
+		if(a.length == 0 || b.length == 0)
+			return new double[0];
+		if(Math.min(a.length, b.length) <= KARATSUBA_THRESHOLD)
+			return schoolbookMultiply(a, b);
+		
+		//a = a0 + a1 x^m and b = b0 + b1 x^m, then the middle part is (a0 + a1)(b0 + b1) - a0 b0 - a1 b1
+		int m = Math.max(a.length, b.length) / 2;
+		double[] a0 = slice(a, 0, m), a1 = slice(a, m, a.length);
+		double[] b0 = slice(b, 0, m), b1 = slice(b, m, b.length);
+		double[] low = multiply(a0, b0);
+		double[] high = multiply(a1, b1);
+		double[] middle = multiply(add(a0, a1), add(b0, b1));
+		
+		double[] product = new double[a.length + b.length - 1];
+		for(int i = 0; i < low.length; i++){
+			product[i] += low[i];
+			middle[i] -= low[i];
+		}
+		for(int i = 0; i < high.length; i++){
+			product[i + 2 * m] += high[i];
+			middle[i] -= high[i];
+		}
+		for(int i = 0; i < middle.length && i + m < product.length; i++)
+			product[i + m] += middle[i];
+		return product;
+	}
+	
+	/**
+	 * Multiplies two polynomials term by term, in O(n^2) time.
+	 */
+	static double[] schoolbookMultiply(double[] a, double[] b){
+		double[] product = new double[a.length + b.length - 1];
+		for(int i = 0; i < a.length; i++){
+			for(int j = 0; j < b.length; j++)
+				product[i + j] += a[i] * b[j];
+		}
+		return product;
+	}
+	
+	/**
+	 * @return : The sum of two polynomials, as long as the longer one.
+	 */
+	public static double[] add(double[] a, double[] b){
+		double[] sum = new double[Math.max(a.length, b.length)];
+		for(int i = 0; i < a.length; i++)
+			sum[i] = a[i];
+		for(int i = 0; i < b.length; i++)
+			sum[i] += b[i];
+		return sum;
+	}
+	
+	/**
+	 * @return : The derivative of the polynomial.
+	 */
+	public static double[] derivative(double[] a){
+		double[] d = new double[Math.max(0, a.length - 1)];
+		for(int i = 1; i < a.length; i++)
+			d[i - 1] = i * a[i];
+		return d;
+	}
+	
+	/**
+	 * Evaluates the polynomial at x with Horner's method.
+	 */
+	public static double evaluate(double[] a, double x){
+		double value = 0;
+		for(int i = a.length - 1; i >= 0; i--)
+			value = value * x + a[i];
+		return value;
+	}
+	
+	/**
+	 * Turns dense coefficients into a PackedPolynomial, leaving out the powers whose coefficients are zero.
+	 */
+	public static PackedPolynomial toPacked(double[] a){
+		int size = 0;
+		for(double c : a){
+			if(c != 0)
+				size++;
+		}
+		int[] exponents = new int[size];
+		double[] coefficients = new double[size];
+		size = 0;
+		for(int i = a.length - 1; i >= 0; i--){
+			if(a[i] != 0){
+				exponents[size] = i;
+				coefficients[size++] = a[i];
+			}
+		}
+		return new PackedPolynomial(exponents, coefficients, size);
+	}
+	
+	/**
+	 * @return : The coefficients from..to of the polynomial, padded with zeros past its end.
+	 */
+	static double[] slice(double[] a, int from, int to){
+		double[] part = new double[Math.max(0, to - from)];
+		if(from < a.length)
+			System.arraycopy(a, from, part, 0, Math.min(a.length, to) - from);
+		return part;
+	}
+}
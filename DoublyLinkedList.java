@@ -1,4 +1,6 @@
 import java.util.Iterator;
+import java.util.ListIterator;
+import java.util.Comparator;
 import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
 
@@ -97,6 +99,125 @@ public class DoublyLinkedList<AnyType> implements List<AnyType>
     return new LinkedListIterator();    
   }
 
+  public ListIterator<AnyType> listIterator()
+  {
+    return new LinkedListIterator();
+  }
+
+  public ListIterator<AnyType> listIterator(int index)
+  {
+    return new LinkedListIterator(index);
+  }
+
+  public boolean addAll(Iterable<? extends AnyType> values)
+  {
+    boolean changed = false;
+
+    for (AnyType value : values)
+    {
+      addBefore(trailer, value);
+      changed = true;
+    }
+    return changed;
+  }
+
+  public void splice(DoublyLinkedList<AnyType> other)
+  {
+    if (other == this)
+      throw new IllegalArgumentException();
+    if (other.isEmpty())
+      return;
+
+    Node<AnyType> first = other.header.getNext();
+    Node<AnyType> last = other.trailer.getPrev();
+    Node<AnyType> prevNode = trailer.getPrev();
+
+    prevNode.setNext(first);
+    first.setPrev(prevNode);
+    last.setNext(trailer);
+    trailer.setPrev(last);
+    theSize += other.theSize;
+    modCount++;
+
+    other.clear();
+    other.modCount++;
+  }
+
+  public void sort(Comparator<? super AnyType> c)
+  {
+    if (size() < 2)
+      return;
+
+    Node<AnyType> list = header.getNext();
+    trailer.getPrev().setNext(null);
+
+    for (int width = 1; ; width *= 2)
+    {
+      Node<AnyType> p = list;
+      Node<AnyType> tail = null;
+      int merges = 0;
+      list = null;
+
+      while (p != null)
+      {
+        merges++;
+        Node<AnyType> q = p;
+        int pSize = 0;
+        for (int i = 0; i < width && q != null; i++)
+        {
+          pSize++;
+          q = q.getNext();
+        }
+        int qSize = width;
+
+        while (pSize > 0 || (qSize > 0 && q != null))
+        {
+          Node<AnyType> e;
+          if (pSize == 0)
+          {
+            e = q;
+            q = q.getNext();
+            qSize--;
+          }
+          else if (qSize == 0 || q == null || c.compare(p.getData(), q.getData()) <= 0)
+          {
+            e = p;
+            p = p.getNext();
+            pSize--;
+          }
+          else
+          {
+            e = q;
+            q = q.getNext();
+            qSize--;
+          }
+
+          if (tail == null)
+            list = e;
+          else
+            tail.setNext(e);
+          tail = e;
+        }
+        p = q;
+      }
+      tail.setNext(null);
+
+      if (merges <= 1)
+        break;
+    }
+
+    Node<AnyType> prevNode = header;
+    for (Node<AnyType> currNode = list; currNode != null; currNode = currNode.getNext())
+    {
+      currNode.setPrev(prevNode);
+      prevNode.setNext(currNode);
+      prevNode = currNode;
+    }
+    prevNode.setNext(trailer);
+    trailer.setPrev(prevNode);
+    modCount++;
+  }
+
   private Node<AnyType> getNode(int index)
   {
     return (getNode(index, 0, size()-1));
@@ -148,17 +269,24 @@ public class DoublyLinkedList<AnyType> implements List<AnyType>
     return currNode.getData();
   }
 
-  private class LinkedListIterator implements Iterator<AnyType>
+  private class LinkedListIterator implements ListIterator<AnyType>
   {
     private Node<AnyType> current;
+    private Node<AnyType> lastReturned;
+    private int nextIndex;
     private int expectedModCount;
-    private boolean okToRemove;
 
     LinkedListIterator()
     {
-      current = header.getNext();
+      this(0);
+    }
+
+    LinkedListIterator(int index)
+    {
+      current = getNode(index, 0, size());
+      nextIndex = index;
       expectedModCount = modCount;
-      okToRemove = false;
+      lastReturned = null;
     }
 
     public boolean hasNext()
@@ -168,27 +296,81 @@ public class DoublyLinkedList<AnyType> implements List<AnyType>
 
     public AnyType next()
     {
-      if (modCount != expectedModCount)
-        throw new ConcurrentModificationException();
+      checkModCount();
       if (!hasNext())
         throw new NoSuchElementException();
 
-      AnyType nextValue = current.getData();
+      lastReturned = current;
       current = current.getNext();
-      okToRemove = true;
-      return nextValue;
+      nextIndex++;
+      return lastReturned.getData();
+    }
+
+    public boolean hasPrevious()
+    {
+      return (current.getPrev() != header);
+    }
+
+    public AnyType previous()
+    {
+      checkModCount();
+      if (!hasPrevious())
+        throw new NoSuchElementException();
+
+      current = current.getPrev();
+      lastReturned = current;
+      nextIndex--;
+      return lastReturned.getData();
+    }
+
+    public int nextIndex()
+    {
+      return nextIndex;
+    }
+
+    public int previousIndex()
+    {
+      return nextIndex - 1;
     }
 
     public void remove()
     {
-      if (modCount != expectedModCount)
-        throw new ConcurrentModificationException();
-      if (!okToRemove)
+      checkModCount();
+      if (lastReturned == null)
+        throw new IllegalStateException();
+
+      if (lastReturned == current)
+        current = current.getNext();
+      else
+        nextIndex--;
+      DoublyLinkedList.this.remove(lastReturned);
+      expectedModCount++;
+      lastReturned = null;
+    }
+
+    public void set(AnyType newValue)
+    {
+      checkModCount();
+      if (lastReturned == null)
         throw new IllegalStateException();
 
-      DoublyLinkedList.this.remove(current.getPrev());
+      lastReturned.setData(newValue);
+    }
+
+    public void add(AnyType newValue)
+    {
+      checkModCount();
+
+      addBefore(current, newValue);
       expectedModCount++;
-      okToRemove = false;
+      nextIndex++;
+      lastReturned = null;
+    }
+
+    private void checkModCount()
+    {
+      if (modCount != expectedModCount)
+        throw new ConcurrentModificationException();
     }
   }
 }
@@ -0,0 +1,233 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+
+/**
+ * Keeps two polynomials and the result of an operation on them, and updates the result as single terms
+ * of either polynomial are added, changed or removed, instead of computing it again from scratch.
+ * 
+ * For add and subtract, a term update changes one term of the result, so it takes constant time. For
+ * multiply (truncated or not), a term update changes the product of that term with every term of the other polynomial, so
+ * it takes time proportional to the size of the other polynomial.
+ * 
+ * The result has the same terms the Polynomial class would compute for the current polynomials,
+ * including terms whose coefficients add up to zero. For add and subtract, a result term is worked out
+ * again from the current terms of both polynomials whenever one of them changes, negating the second
+ * term for subtract the way Polynomial.subtract does, so the coefficients match exactly, down to the
+ * sign of a zero. For multiply, the coefficients are updated by adding differences, so updates can
+ * gather rounding error, and can leave 0.0 where Polynomial gives -0.0 or the other way round. recompute
+ * clears both.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class IncrementalPolynomial {
+	
+	String operation;
+	
+	//For "multiply mod n", the exponent n from which product terms are left out. -1 for other operations.
+	int order;
+	
+	//The terms of each polynomial and of the result, by exponent
+	HashMap<Integer, Terms> firstPolynomial = new HashMap<Integer, Terms>();
+	HashMap<Integer, Terms> secondPolynomial = new HashMap<Integer, Terms>();
+	HashMap<Integer, Terms> answerPolynomial = new HashMap<Integer, Terms>();
+	
+	//The number of pairs of terms (or single terms, for add and subtract) that make up each result term.
+	//A result term only goes away once nothing contributes to it.
+	HashMap<Integer, Integer> contributions = new HashMap<Integer, Integer>();
+	
+	PolynomialHelper polyHelp;
+	
+	/**
+	 * Parses and simplifies the two polynomials and computes the result of the operation on them.
+	 * 
+	 * @param fp : The first polynomial, in the same format as Project1's input lines.
+	 * @param sp : The second polynomial, in the same format as Project1's input lines.
+	 * @param op : The operation, "add", "subtract", "multiply" or "multiply mod n".
+	 * @throws IllegalArgumentException : If either polynomial or the operation is invalid.
+	 */
+	public IncrementalPolynomial(String fp, String sp, String op) throws IllegalArgumentException{
+		polyHelp = new PolynomialHelper();
+		if(!polyHelp.validOperation(op))
+			throw new IllegalArgumentException("Invalid Operation. Please use 'add' 'subtract' or 'multiply'");
+		operation = op.replace(" ", "").toLowerCase();
+		order = polyHelp.truncationOrder(op);
+		
+		DoublyLinkedList<Terms> first = new DoublyLinkedList<Terms>();
+		DoublyLinkedList<Terms> second = new DoublyLinkedList<Terms>();
+		if(!polyHelp.parsePolynomialString(fp, first, true) | !polyHelp.parsePolynomialString(sp, second, false))
+			throw new IllegalArgumentException(String.join("\n", polyHelp.getErrors()));
+		polyHelp.simplify(first);
+		polyHelp.simplify(second);
+		
+		Iterator<Terms> it = first.iterator();
+		while(it.hasNext()){
+			Terms term = it.next();
+			firstPolynomial.put(term.getExponent(), new Terms(term.getCoefficient(), term.getExponent()));
+		}
+		it = second.iterator();
+		while(it.hasNext()){
+			Terms term = it.next();
+			secondPolynomial.put(term.getExponent(), new Terms(term.getCoefficient(), term.getExponent()));
+		}
+		recompute();
+	}
+	
+	/**
+	 * Adds a term to one of the polynomials, or changes its coefficient if the polynomial already has a
+	 * term with that exponent, and updates the result.
+	 * 
+	 * @param first : true to update the first polynomial, false to update the second.
+	 * @param exponent : The exponent of the term.
+	 * @param coefficient : The new coefficient of the term.
+	 */
+	public void setTerm(boolean first, int exponent, double coefficient){
+		HashMap<Integer, Terms> poly = first ? firstPolynomial : secondPolynomial;
+		Terms term = poly.get(exponent);
+		if(term == null){
+			poly.put(exponent, new Terms(coefficient, exponent));
+			applyChange(first, exponent, coefficient, 1);
+		}
+		else{
+			double difference = coefficient - term.getCoefficient();
+			term.setCoefficient(coefficient);
+			applyChange(first, exponent, difference, 0);
+		}
+	}
+	
+	/**
+	 * Removes a term from one of the polynomials, if it has one with that exponent, and updates the result.
+	 * 
+	 * @param first : true to update the first polynomial, false to update the second.
+	 * @param exponent : The exponent of the term to remove.
+	 */
+	public void removeTerm(boolean first, int exponent){
+		Terms term = (first ? firstPolynomial : secondPolynomial).remove(exponent);
+		if(term != null)
+			applyChange(first, exponent, -term.getCoefficient(), -1);
+	}
+	
+	/**
+	 * Computes the result again from the current polynomials, dropping any rounding error gathered by
+	 * earlier updates.
+	 */
+	public void recompute(){
+		answerPolynomial.clear();
+		contributions.clear();
+		for(Terms term : firstPolynomial.values()){
+			if(isMultiply()){
+				for(Terms other : secondPolynomial.values())
+					addProduct(term.getExponent() + other.getExponent(), term.getCoefficient() * other.getCoefficient(), 1);
+			}
+			else
+				updateSum(term.getExponent(), 1);
+		}
+		if(!isMultiply()){
+			for(Terms term : secondPolynomial.values())
+				updateSum(term.getExponent(), 1);
+		}
+	}
+	
+	/**
+	 * Updates the result after a term of one of the polynomials changed.
+	 * 
+	 * @param first : true if the term is in the first polynomial.
+	 * @param exponent : The exponent of the term that changed.
+	 * @param difference : How much the term's coefficient changed by.
+	 * @param contribution : 1 if the term was added, -1 if it was removed, 0 if only its coefficient changed.
+	 */
+	void applyChange(boolean first, int exponent, double difference, int contribution){
+		if(isMultiply()){
+			for(Terms other : (first ? secondPolynomial : firstPolynomial).values())
+				addProduct(exponent + other.getExponent(), difference * other.getCoefficient(), contribution);
+		}
+		else
+			updateSum(exponent, contribution);
+	}
+	
+	boolean isMultiply(){
+		return operation.equals("multiply") || order >= 0;
+	}
+	
+	/**
+	 * Adds a term product to the result, unless the operation is truncated and the product is past it.
+	 */
+	void addProduct(int exponent, double difference, int contribution){
+		if(order < 0 || exponent < order)
+			addToAnswer(exponent, difference, contribution);
+	}
+	
+	/**
+	 * Works out a result term of add or subtract again from the current terms with that exponent, creating
+	 * or removing it as its contributions change. Like terms are added the same way Polynomial.add does,
+	 * with the second term negated for subtract.
+	 */
+	void updateSum(int exponent, int contribution){
+		int count = contributions.getOrDefault(exponent, 0) + contribution;
+		if(count == 0){
+			contributions.remove(exponent);
+			answerPolynomial.remove(exponent);
+			return;
+		}
+		contributions.put(exponent, count);
+		
+		Terms firstTerm = firstPolynomial.get(exponent);
+		Terms secondTerm = secondPolynomial.get(exponent);
+		double coefficient;
+		if(secondTerm == null)
+			coefficient = firstTerm.getCoefficient();
+		else{
+			coefficient = secondTerm.getCoefficient();
+			if(operation.equals("subtract"))
+				coefficient = coefficient*-1;
+			if(firstTerm != null)
+				coefficient = firstTerm.getCoefficient() + coefficient;
+		}
+		
+		Terms term = answerPolynomial.get(exponent);
+		if(term == null)
+			answerPolynomial.put(exponent, new Terms(coefficient, exponent));
+		else
+			term.setCoefficient(coefficient);
+	}
+	
+	/**
+	 * Adds to the coefficient of a result term, creating or removing the term as its contributions change.
+	 */
+	void addToAnswer(int exponent, double difference, int contribution){
+		int count = contributions.getOrDefault(exponent, 0) + contribution;
+		if(count == 0){
+			contributions.remove(exponent);
+			answerPolynomial.remove(exponent);
+			return;
+		}
+		contributions.put(exponent, count);
+		
+		Terms term = answerPolynomial.get(exponent);
+		if(term == null)
+			answerPolynomial.put(exponent, new Terms(difference, exponent));
+		else
+			term.setCoefficient(term.getCoefficient() + difference);
+	}
+	
+	/**
+	 * @return : A new DoublyLinkedList holding the result's terms in descending exponent order.
+	 */
+	public DoublyLinkedList<Terms> getAnswerPolynomial(){
+		ArrayList<Terms> terms = new ArrayList<Terms>(answerPolynomial.values());
+		terms.sort((a, b) -> Integer.compare(b.getExponent(), a.getExponent()));
+		
+		DoublyLinkedList<Terms> answer = new DoublyLinkedList<Terms>();
+		for(Terms term : terms)
+			answer.add(new Terms(term.getCoefficient(), term.getExponent()));
+		return answer;
+	}
+	
+	/**
+	 * Formats the result the same way Polynomial.toString does.
+	 */
+	public String toString(){
+		return polyHelp.format(getAnswerPolynomial());
+	}
+}
@@ -0,0 +1,93 @@
+/**
+ * Builds the polynomial of lowest degree that passes through a set of points (x, y), using Newton's
+ * divided differences in O(n^2) time.
+ * 
+ * The answer is given as coefficients of powers of x, and finding those in double precision is badly
+ * conditioned once there are more than a few dozen points: a cubic sampled at Chebyshev points comes out
+ * right at 48 points and wrong at 52, and points spread further apart fail sooner. No faster method
+ * helps, as the loss is in the monomial coefficients themselves. More than MAX_POINTS points are
+ * therefore rejected before any work is done, and every result is checked against the points, so that
+ * a polynomial which doesn't pass through them is never returned.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class Interpolator {
+	
+	//More points than this are rejected without trying, as they can't be interpolated accurately
+	static final int MAX_POINTS = 64;
+	
+	//How far a result may miss a point, relative to the largest y value
+	static final double TOLERANCE = 1e-9;
+	
+	/**
+	 * Finds the polynomial through the given points.
+	 * 
+	 * @param x : The x value of each point. These must all be different.
+	 * @param y : The y value of each point.
+	 * @return : The polynomial's coefficients, where a[i] is the coefficient of x^i.
+	 * @throws IllegalArgumentException : If the arrays differ in length or two points share an x value.
+	 * @throws ArithmeticException : If there are more than MAX_POINTS points, or the polynomial can't be
+	 * found accurately in double precision.
+	 */
+	public static double[] interpolate(double[] x, double[] y) throws IllegalArgumentException, ArithmeticException{
+		if(x.length != y.length)
+			throw new IllegalArgumentException("Every point needs an x and a y value");
+		if(x.length > MAX_POINTS)
+			throw new ArithmeticException("More than " + MAX_POINTS + " points can't be interpolated accurately in double precision");
+		
+		double[] p = newton(x, y);
+		if(!passesThrough(p, x, y))
+			throw new ArithmeticException("The points can't be interpolated accurately in double precision");
+		return p;
+	}
+	
+	/**
+	 * @return : true if every coefficient is finite and the polynomial comes within TOLERANCE of each point.
+	 */
+	static boolean passesThrough(double[] p, double[] x, double[] y){
+		for(double coefficient : p){
+			if(!Double.isFinite(coefficient))
+				return false;
+		}
+		
+		double scale = 1;
+		for(double value : y)
+			scale = Math.max(scale, Math.abs(value));
+		for(int i = 0; i < x.length; i++){
+			if(!(Math.abs(DensePolynomials.evaluate(p, x[i]) - y[i]) <= TOLERANCE * scale))
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Newton's divided differences, followed by expanding the Newton form into powers of x.
+	 */
+	static double[] newton(double[] x, double[] y){
+		int n = x.length;
+		
+		//After pass k, c[i] holds the divided difference of points i-k..i
+		double[] c = y.clone();
+		for(int k = 1; k < n; k++){
+			for(int i = n - 1; i >= k; i--){
+				double gap = x[i] - x[i - k];
+				if(gap == 0)
+					throw new IllegalArgumentException("Two points have the same x value");
+				c[i] = (c[i] - c[i - 1]) / gap;
+			}
+		}
+		
+		//p = c[n-1], then p = p (x - x_k) + c[k] for k going down to 0
+		double[] p = new double[n];
+		if(n == 0)
+			return p;
+		p[0] = c[n - 1];
+		for(int k = n - 2; k >= 0; k--){
+			for(int i = n - 1 - k; i >= 1; i--)
+				p[i] = p[i - 1] - x[k] * p[i];
+			p[0] = c[k] - x[k] * p[0];
+		}
+		return p;
+	}
+}
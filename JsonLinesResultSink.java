@@ -0,0 +1,120 @@
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Writes each result as one line of JSON, for other programs to read. A line looks like
+ * 
+ * 		{"valid":true,"input":["1 2","3 1","multiply"],"errors":[],"answer":[[3.0,3]],"text":"3.0x^3 "}
+ * 
+ * where the answer is a list of [coefficient, exponent] pairs in descending exponent order. If roots were
+ * found, "roots" holds a [real, imaginary, error estimate, backward error] list per root and "rootsConverged"
+ * says whether they all converged. "rootsTooLarge" is added, with no roots, when the degree was too large
+ * to look for them. An error that isn't part of any record is written as
+ * {"valid":false,"errors":["..."]}, and a validation as {"record":1,"valid":true,"errors":[]}. Coefficients that
+ * aren't finite are written as null.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class JsonLinesResultSink extends BufferedResultSink {
+	
+	public JsonLinesResultSink(WritableByteChannel channel){
+		super(channel);
+	}
+	
+	byte[] encodeResult(Polynomial poly, RootFinder.Roots roots){
+		StringBuilder json = new StringBuilder();
+		json.append("{\"valid\":").append(poly.isValid());
+		json.append(",\"input\":[");
+		string(json, poly.getFirstPolynomialString()).append(',');
+		string(json, poly.getSecondPolynomialString()).append(',');
+		string(json, poly.getOperation()).append(']');
+		
+		json.append(",\"errors\":[");
+		for(int i = 0; i < poly.getErrors().size(); i++){
+			if(i > 0)
+				json.append(',');
+			string(json, poly.getErrors().get(i));
+		}
+		
+		json.append("],\"answer\":[");
+		Iterator<Terms> it = poly.getAnswerPolynomial().iterator();
+		boolean first = true;
+		while(it.hasNext()){
+			Terms term = it.next();
+			if(!first)
+				json.append(',');
+			json.append('[');
+			number(json, term.getCoefficient()).append(',').append(term.getExponent()).append(']');
+			first = false;
+		}
+		json.append("],\"text\":");
+		string(json, poly.toString());
+		
+		if(roots != null){
+			json.append(",\"roots\":[");
+			for(int i = 0; i < roots.count(); i++){
+				if(i > 0)
+					json.append(',');
+				json.append('[');
+				number(json, roots.real[i]).append(',');
+				number(json, roots.imaginary[i]).append(',');
+				number(json, roots.errorEstimate[i]).append(',');
+				number(json, roots.backwardError[i]).append(']');
+			}
+			json.append("],\"rootsConverged\":").append(roots.converged);
+			if(roots.tooLarge)
+				json.append(",\"rootsTooLarge\":true");
+		}
+		json.append("}\n");
+		return json.toString().getBytes(StandardCharsets.UTF_8);
+	}
+	
+	byte[] encodeValidation(int recordNumber, Polynomial poly){
+		StringBuilder json = new StringBuilder();
+		json.append("{\"record\":").append(recordNumber).append(",\"valid\":").append(poly.isValid());
+		json.append(",\"errors\":[");
+		for(int i = 0; i < poly.getErrors().size(); i++){
+			if(i > 0)
+				json.append(',');
+			string(json, poly.getErrors().get(i));
+		}
+		json.append("]}\n");
+		return json.toString().getBytes(StandardCharsets.UTF_8);
+	}
+	
+	byte[] encodeError(String message){
+		StringBuilder json = new StringBuilder("{\"valid\":false,\"errors\":[");
+		string(json, message).append("]}\n");
+		return json.toString().getBytes(StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Appends a JSON string, escaping quotes, backslashes and control characters.
+	 */
+	static StringBuilder string(StringBuilder json, String value){
+		json.append('"');
+		for(int i = 0; i < value.length(); i++){
+			char c = value.charAt(i);
+			if(c == '"' || c == '\\')
+				json.append('\\').append(c);
+			else if(c == '\n')
+				json.append("\\n");
+			else if(c < 0x20)
+				json.append(String.format("\\u%04x", (int) c));
+			else
+				json.append(c);
+		}
+		return json.append('"');
+	}
+	
+	/**
+	 * Appends a JSON number, or null for NaN and infinities which JSON can't represent.
+	 */
+	static StringBuilder number(StringBuilder json, double value){
+		if(Double.isNaN(value) || Double.isInfinite(value))
+			return json.append("null");
+		return json.append(value);
+	}
+}
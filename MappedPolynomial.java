@@ -0,0 +1,135 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only view of a polynomial encoded in the binary format described in PolynomialCodec. The view
+ * reads terms directly out of the underlying buffer (usually a memory-mapped file), so no arrays or
+ * Terms nodes are created for the polynomial.
+ * 
+ * Coefficients can be read in any order. Exponents of a SPARSE polynomial are stored as gaps, so they are
+ * read in order through a Cursor.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class MappedPolynomial {
+	
+	ByteBuffer buffer;
+	byte representation;
+	int termCount, degree, lowestExponent;
+	
+	/**
+	 * Creates a view of the encoded polynomial that starts at the buffer's current position.
+	 * 
+	 * @param encoded : The buffer holding the encoded polynomial.
+	 * @throws IOException : If the buffer does not hold a polynomial in a known version of the format.
+	 */
+	public MappedPolynomial(ByteBuffer encoded) throws IOException{
+		buffer = encoded.slice();
+		if(buffer.remaining() < PolynomialCodec.HEADER_SIZE || buffer.getInt(0) != PolynomialCodec.MAGIC)
+			throw new IOException("Not a binary polynomial");
+		if(buffer.get(PolynomialCodec.VERSION_OFFSET) != PolynomialCodec.VERSION)
+			throw new IOException("Unsupported binary polynomial version " + buffer.get(PolynomialCodec.VERSION_OFFSET));
+		
+		representation = buffer.get(PolynomialCodec.REPRESENTATION_OFFSET);
+		termCount = buffer.getInt(PolynomialCodec.TERM_COUNT_OFFSET);
+		degree = buffer.getInt(PolynomialCodec.DEGREE_OFFSET);
+		lowestExponent = buffer.getInt(PolynomialCodec.LOWEST_EXPONENT_OFFSET);
+		if(representation != PolynomialCodec.SPARSE && representation != PolynomialCodec.DENSE)
+			throw new IOException("Unknown binary polynomial representation " + representation);
+		if(termCount < 0 || buffer.remaining() < PolynomialCodec.HEADER_SIZE + (long) termCount * 8)
+			throw new IOException("Binary polynomial is truncated");
+	}
+	
+	public int termCount(){
+		return termCount;
+	}
+	
+	public int degree(){
+		return degree;
+	}
+	
+	public int lowestExponent(){
+		return lowestExponent;
+	}
+	
+	public boolean isDense(){
+		return representation == PolynomialCodec.DENSE;
+	}
+	
+	/**
+	 * @param i : The position of the term, 0 being the term with the highest exponent.
+	 * @return : The coefficient of the i-th term.
+	 */
+	public double coefficient(int i){
+		if(i < 0 || i >= termCount)
+			throw new IndexOutOfBoundsException();
+		return buffer.getDouble(PolynomialCodec.HEADER_SIZE + i * 8);
+	}
+	
+	/**
+	 * @return : A new cursor positioned before the first term.
+	 */
+	public Cursor cursor(){
+		return new Cursor();
+	}
+	
+	/**
+	 * Steps through the terms in descending exponent order. Call next before reading the first term.
+	 */
+	public class Cursor {
+		int index = -1;
+		int exponent;
+		
+		//Where the next exponent gap is read from, for SPARSE polynomials
+		ByteBuffer gaps;
+		
+		Cursor(){
+			if(!isDense())
+				gaps = buffer.duplicate().position(PolynomialCodec.HEADER_SIZE + termCount * 8);
+		}
+		
+		/**
+		 * Moves to the next term.
+		 * 
+		 * @return : true if there was another term, false once every term has been read.
+		 * @throws IOException : If the exponent gaps run past the end of the buffer, or don't lead from the
+		 * degree down to the lowest exponent.
+		 */
+		public boolean next() throws IOException{
+			if(index + 1 >= termCount)
+				return false;
+			index++;
+			if(index == 0)
+				exponent = degree;
+			else if(isDense())
+				exponent--;
+			else{
+				long gap;
+				try{
+					gap = PolynomialCodec.readVarint(gaps);
+				}
+				catch(BufferUnderflowException e){
+					throw new IOException("Binary polynomial is truncated");
+				}
+				
+				//Exponents strictly decrease, and can't step below the lowest exponent
+				if(gap <= 0 || (long) exponent - gap < lowestExponent)
+					throw new IOException("Binary polynomial is corrupt");
+				exponent = (int) (exponent - gap);
+			}
+			if(index == termCount - 1 && exponent != lowestExponent)
+				throw new IOException("Binary polynomial is corrupt");
+			return true;
+		}
+		
+		public int exponent(){
+			return exponent;
+		}
+		
+		public double coefficient(){
+			return MappedPolynomial.this.coefficient(index);
+		}
+	}
+}
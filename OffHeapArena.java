@@ -0,0 +1,121 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * Hands out memory outside the Java heap for OffHeapPolynomials, and decides how long it lives. Everything
+ * allocated from an arena is released together when the arena is closed, after which the polynomials that
+ * were allocated from it can no longer be used.
+ * 
+ * Allocations are made from direct memory until the budget is used up. Past that, each allocation is a
+ * scratch file in the spill directory that is memory-mapped, so the operating system pages it to disk as
+ * needed. New allocations are always filled with zeros.
+ * 
+ * Direct and mapped buffers have no explicit free before Java 22, so the memory itself is returned once the
+ * garbage collector finds the buffers unreachable. Closing the arena deletes the spill files right away.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class OffHeapArena implements AutoCloseable {
+	
+	long budget;
+	Path spillDirectory;
+	
+	//Bytes of direct memory handed out so far, and bytes spilled to scratch files
+	long allocated, spilled;
+	
+	ArrayList<Path> spillFiles = new ArrayList<Path>();
+	volatile boolean open = true;
+	
+	/**
+	 * @param budget : The number of bytes of direct memory to allocate before spilling to disk.
+	 * @param spillDirectory : The directory spill files are created in.
+	 */
+	public OffHeapArena(long budget, Path spillDirectory){
+		if(budget < 0)
+			throw new IllegalArgumentException("Memory budget can't be negative");
+		this.budget = budget;
+		this.spillDirectory = spillDirectory;
+	}
+	
+	/**
+	 * Allocates a zero-filled buffer in native byte order.
+	 * 
+	 * @param bytes : The size of the buffer.
+	 * @return : A direct buffer if it fits in what is left of the budget, otherwise a mapped spill file.
+	 * @throws IOException : If the spill file could not be created.
+	 */
+	public synchronized ByteBuffer allocate(long bytes) throws IOException{
+		checkOpen();
+		if(bytes < 0 || bytes > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Can't allocate " + bytes + " bytes in one buffer");
+		
+		ByteBuffer buffer;
+		if(allocated + bytes <= budget){
+			buffer = ByteBuffer.allocateDirect((int) bytes);
+			allocated += bytes;
+		}
+		else{
+			Path file = Files.createTempFile(spillDirectory, "arena", ".spill");
+			spillFiles.add(file);
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)){
+				buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+			}
+			spilled += bytes;
+		}
+		return buffer.order(ByteOrder.nativeOrder());
+	}
+	
+	public synchronized long allocated(){
+		return allocated;
+	}
+	
+	public synchronized long spilled(){
+		return spilled;
+	}
+	
+	public boolean isOpen(){
+		return open;
+	}
+	
+	/**
+	 * @throws IllegalStateException : If the arena has been closed.
+	 */
+	void checkOpen(){
+		if(!open)
+			throw new IllegalStateException("The arena has been closed");
+	}
+	
+	/**
+	 * Closes the arena and deletes its spill files. Closing an arena more than once has no effect.
+	 * 
+	 * @throws IOException : If a spill file could not be deleted. Every file is still attempted.
+	 */
+	public synchronized void close() throws IOException{
+		if(!open)
+			return;
+		open = false;
+		
+		IOException failure = null;
+		for(Path file : spillFiles){
+			try{
+				Files.deleteIfExists(file);
+			}
+			catch(IOException e){
+				if(failure == null)
+					failure = e;
+				else
+					failure.addSuppressed(e);
+			}
+		}
+		spillFiles.clear();
+		if(failure != null)
+			throw failure;
+	}
+}
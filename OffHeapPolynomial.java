@@ -0,0 +1,343 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+/**
+ * A polynomial whose terms are kept in memory from an OffHeapArena rather than on the Java heap, so that
+ * very large polynomials add nothing to the work of the garbage collector. Terms are stored in descending
+ * exponent order like PackedPolynomial, each as a coefficient followed by its exponent, in chunks of
+ * CHUNK_TERMS terms. A polynomial grows a chunk at a time, so its size isn't limited by the largest
+ * buffer, and a result doesn't need room for more terms than it actually has.
+ * 
+ * The add, multiply and evaluate methods work directly on the buffers. Their results are allocated from
+ * the arena passed in, and every polynomial becomes unusable once the arena it came from is closed. The
+ * public getters check the arena on every call, while the kernels check it once and then read the
+ * buffers directly.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class OffHeapPolynomial {
+	
+	//A coefficient and an exponent
+	static final int BYTES_PER_TERM = 12;
+	
+	//The number of terms in a full chunk, 12 MB worth
+	static final int CHUNK_SHIFT = 20;
+	static final int CHUNK_TERMS = 1 << CHUNK_SHIFT;
+	
+	OffHeapArena arena;
+	ArrayList<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+	
+	//The number of terms held, and the number there is room for in the chunks allocated so far
+	int size;
+	long capacity;
+	
+	/**
+	 * Allocates room for a number of terms. The polynomial starts with no terms, and grows past that
+	 * room if more are appended.
+	 */
+	OffHeapPolynomial(OffHeapArena arena, long expectedTerms) throws IOException{
+		this.arena = arena;
+		ensureCapacity(Math.min(expectedTerms, CHUNK_TERMS));
+	}
+	
+	/**
+	 * Allocates chunks until there is room for the given number of terms. Every chunk but the last is
+	 * full sized. A last chunk that is smaller is replaced by a full one, which its terms are copied to.
+	 */
+	void ensureCapacity(long terms) throws IOException{
+		if(terms > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Too many terms for an off-heap polynomial: " + terms);
+		while(capacity < terms){
+			int last = chunks.size() - 1;
+			if(last >= 0 && chunks.get(last).capacity() < CHUNK_TERMS * BYTES_PER_TERM){
+				ByteBuffer full = arena.allocate((long) CHUNK_TERMS * BYTES_PER_TERM);
+				ByteBuffer partial = chunks.get(last).duplicate();
+				partial.clear();
+				full.put(partial).clear();
+				chunks.set(last, full);
+			}
+			else
+				chunks.add(arena.allocate(Math.min(CHUNK_TERMS, terms - capacity) * BYTES_PER_TERM));
+			
+			last = chunks.size() - 1;
+			capacity = (long) last * CHUNK_TERMS + chunks.get(last).capacity() / BYTES_PER_TERM;
+		}
+	}
+	
+	/**
+	 * Copies a PackedPolynomial into the arena.
+	 * 
+	 * @param arena : The arena the copy is allocated from.
+	 * @param polynomial : The polynomial to copy, in descending exponent order.
+	 * @return : An off-heap polynomial with the same terms.
+	 * @throws IOException : If the arena had to spill and the spill file could not be created.
+	 */
+	public static OffHeapPolynomial copyOf(OffHeapArena arena, PackedPolynomial polynomial) throws IOException{
+		OffHeapPolynomial copy = new OffHeapPolynomial(arena, polynomial.size());
+		for(int i = 0; i < polynomial.size(); i++)
+			copy.append(polynomial.getExponent(i), polynomial.getCoefficient(i));
+		return copy;
+	}
+	
+	/**
+	 * Copies a polynomial in the binary format of PolynomialCodec into the arena, without creating any
+	 * arrays for it on the heap.
+	 * 
+	 * @param arena : The arena the copy is allocated from.
+	 * @param polynomial : The encoded polynomial to copy.
+	 * @return : An off-heap polynomial with the same terms.
+	 * @throws IOException : If the arena had to spill and the spill file could not be created, or the
+	 * encoded polynomial is corrupt.
+	 */
+	public static OffHeapPolynomial copyOf(OffHeapArena arena, MappedPolynomial polynomial) throws IOException{
+		OffHeapPolynomial copy = new OffHeapPolynomial(arena, polynomial.termCount());
+		MappedPolynomial.Cursor cursor = polynomial.cursor();
+		while(cursor.next())
+			copy.append(cursor.exponent(), cursor.coefficient());
+		return copy;
+	}
+	
+	/**
+	 * Copies the terms back onto the heap.
+	 * 
+	 * @return : A PackedPolynomial with the same terms.
+	 */
+	public PackedPolynomial toPacked(){
+		arena.checkOpen();
+		int[] exponents = new int[size];
+		double[] coefficients = new double[size];
+		for(int i = 0; i < size; i++){
+			exponents[i] = exponent(i);
+			coefficients[i] = coefficient(i);
+		}
+		return new PackedPolynomial(exponents, coefficients, size);
+	}
+	
+	public int size(){
+		return size;
+	}
+	
+	public int getExponent(int i){
+		arena.checkOpen();
+		return exponent(i);
+	}
+	
+	public double getCoefficient(int i){
+		arena.checkOpen();
+		return coefficient(i);
+	}
+	
+	/**
+	 * @return : The highest exponent, or 0 for a polynomial with no terms.
+	 */
+	public int degree(){
+		return size == 0 ? 0 : getExponent(0);
+	}
+	
+	/**
+	 * @return : The lowest exponent, or 0 for a polynomial with no terms.
+	 */
+	public int lowestExponent(){
+		return size == 0 ? 0 : getExponent(size - 1);
+	}
+	
+	//Unchecked access for the kernels, which check the arena once before they start
+	
+	int exponent(int i){
+		return chunks.get(i >>> CHUNK_SHIFT).getInt((i & (CHUNK_TERMS - 1)) * BYTES_PER_TERM + 8);
+	}
+	
+	double coefficient(int i){
+		return chunks.get(i >>> CHUNK_SHIFT).getDouble((i & (CHUNK_TERMS - 1)) * BYTES_PER_TERM);
+	}
+	
+	void setExponent(int i, int exponent){
+		chunks.get(i >>> CHUNK_SHIFT).putInt((i & (CHUNK_TERMS - 1)) * BYTES_PER_TERM + 8, exponent);
+	}
+	
+	void setCoefficient(int i, double coefficient){
+		chunks.get(i >>> CHUNK_SHIFT).putDouble((i & (CHUNK_TERMS - 1)) * BYTES_PER_TERM, coefficient);
+	}
+	
+	/**
+	 * Adds a term after the last one. Its exponent must be lower than every exponent already held.
+	 */
+	void append(int exponent, double coefficient) throws IOException{
+		if(size == capacity)
+			ensureCapacity((long) size + 1);
+		setExponent(size, exponent);
+		setCoefficient(size, coefficient);
+		size++;
+	}
+	
+	/**
+	 * Adds two polynomials by merging their terms, adding the coefficients of like terms. Like Polynomial's
+	 * add, terms whose coefficients add up to zero are kept.
+	 * 
+	 * @param arena : The arena the sum is allocated from.
+	 * @return : The sum, in descending exponent order.
+	 * @throws IOException : If the arena had to spill and the spill file could not be created.
+	 */
+	public static OffHeapPolynomial add(OffHeapArena arena, OffHeapPolynomial first, OffHeapPolynomial second) throws IOException{
+		first.arena.checkOpen();
+		second.arena.checkOpen();
+		OffHeapPolynomial sum = new OffHeapPolynomial(arena, (long) first.size + second.size);
+		int i = 0, j = 0;
+		while(i < first.size || j < second.size){
+			if(j == second.size || (i < first.size && first.exponent(i) > second.exponent(j))){
+				sum.append(first.exponent(i), first.coefficient(i));
+				i++;
+			}
+			else if(i == first.size || second.exponent(j) > first.exponent(i)){
+				sum.append(second.exponent(j), second.coefficient(j));
+				j++;
+			}
+			else{
+				sum.append(first.exponent(i), first.coefficient(i) + second.coefficient(j));
+				i++;
+				j++;
+			}
+		}
+		return sum;
+	}
+	
+	/**
+	 * Multiplies two polynomials, adding the coefficients of like terms.
+	 * 
+	 * When the product's exponents are packed closely enough (as in ParallelMultiplier), the products are
+	 * added up in place in the result, indexed by exponent. Otherwise the rows of products of each term of
+	 * the shorter polynomial are merged with a heap, which only needs one heap entry per row, and the
+	 * result grows a chunk at a time as terms come out of the merge.
+	 * 
+	 * @param arena : The arena the product is allocated from.
+	 * @return : The product, in descending exponent order.
+	 * @throws IOException : If the arena had to spill and the spill file could not be created.
+	 */
+	public static OffHeapPolynomial multiply(OffHeapArena arena, OffHeapPolynomial first, OffHeapPolynomial second) throws IOException{
+		first.arena.checkOpen();
+		second.arena.checkOpen();
+		if(first.size < second.size)
+			return multiply(arena, second, first);
+		if(second.size == 0)
+			return new OffHeapPolynomial(arena, 0);
+		
+		long highest = (long) first.exponent(0) + second.exponent(0);
+		long range = highest - ((long) first.exponent(first.size - 1) + second.exponent(second.size - 1)) + 1;
+		long products = (long) first.size * second.size;
+		
+		if(range <= 2 * products && range <= Integer.MAX_VALUE)
+			return multiplyDense(arena, first, second, highest, (int) range);
+		return multiplySparse(arena, first, second, Math.min(products, range));
+	}
+	
+	/**
+	 * Adds every product into the coefficient slot for its exponent. The exponent slots, which start out
+	 * as zero, mark which exponents received a product, and the marked terms are then moved to the front.
+	 */
+	static OffHeapPolynomial multiplyDense(OffHeapArena arena, OffHeapPolynomial first, OffHeapPolynomial second,
+			long highest, int range) throws IOException{
+		OffHeapPolynomial product = new OffHeapPolynomial(arena, range);
+		product.ensureCapacity(range);
+		
+		for(int i = 0; i < first.size; i++){
+			int firstExponent = first.exponent(i);
+			double firstCoefficient = first.coefficient(i);
+			for(int j = 0; j < second.size; j++){
+				int k = (int) (highest - firstExponent - second.exponent(j));
+				product.setCoefficient(k, product.coefficient(k) + firstCoefficient * second.coefficient(j));
+				product.setExponent(k, 1);
+			}
+		}
+		
+		//Compacts in place. A term never moves to a slot after its own, so nothing unread is overwritten.
+		for(int k = 0; k < range; k++){
+			if(product.exponent(k) != 0)
+				product.append((int) (highest - k), product.coefficient(k));
+		}
+		return product;
+	}
+	
+	/**
+	 * Merges the rows of products, one row per term of second, taking the highest exponent from a binary
+	 * heap of rows each time and adding it to the last term if their exponents match.
+	 */
+	static OffHeapPolynomial multiplySparse(OffHeapArena arena, OffHeapPolynomial first, OffHeapPolynomial second,
+			long maximumTerms) throws IOException{
+		OffHeapPolynomial product = new OffHeapPolynomial(arena, maximumTerms);
+		
+		//For each row, the position in first of its next product, and the heap of rows by next exponent
+		int rows = second.size;
+		int[] next = new int[rows];
+		int[] heap = new int[rows];
+		for(int r = 0; r < rows; r++)
+			heap[r] = r;
+		int heapSize = rows;
+		
+		//Every row starts at the first term of first, so the rows begin ordered by the exponents of second
+		while(heapSize > 0){
+			int row = heap[0];
+			int exponent = first.exponent(next[row]) + second.exponent(row);
+			double coefficient = first.coefficient(next[row]) * second.coefficient(row);
+			
+			int last = product.size - 1;
+			if(last >= 0 && product.exponent(last) == exponent)
+				product.setCoefficient(last, product.coefficient(last) + coefficient);
+			else
+				product.append(exponent, coefficient);
+			
+			if(++next[row] == first.size)
+				heap[0] = heap[--heapSize];
+			siftDown(heap, heapSize, next, first, second);
+		}
+		return product;
+	}
+	
+	/**
+	 * Moves the row at the top of the heap down until no row below it has a higher next exponent.
+	 */
+	static void siftDown(int[] heap, int heapSize, int[] next, OffHeapPolynomial first, OffHeapPolynomial second){
+		int i = 0;
+		while(true){
+			int largest = i;
+			int left = 2 * i + 1, right = left + 1;
+			if(left < heapSize && nextExponent(heap[left], next, first, second) > nextExponent(heap[largest], next, first, second))
+				largest = left;
+			if(right < heapSize && nextExponent(heap[right], next, first, second) > nextExponent(heap[largest], next, first, second))
+				largest = right;
+			if(largest == i)
+				return;
+			int swap = heap[i];
+			heap[i] = heap[largest];
+			heap[largest] = swap;
+			i = largest;
+		}
+	}
+	
+	static long nextExponent(int row, int[] next, OffHeapPolynomial first, OffHeapPolynomial second){
+		return (long) first.exponent(next[row]) + second.exponent(row);
+	}
+	
+	/**
+	 * Evaluates the polynomial at x with Horner's method, raising x to the gap between neighbouring
+	 * exponents so that missing powers cost nothing.
+	 * 
+	 * @param x : The value to evaluate at.
+	 * @return : The value of the polynomial at x.
+	 */
+	public double evaluate(double x){
+		arena.checkOpen();
+		if(size == 0)
+			return 0;
+		
+		double value = 0;
+		int previous = exponent(0);
+		for(int i = 0; i < size; i++){
+			int exponent = exponent(i);
+			value = value * Math.pow(x, previous - exponent) + coefficient(i);
+			previous = exponent;
+		}
+		return value * Math.pow(x, previous);
+	}
+}
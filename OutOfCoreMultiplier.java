@@ -0,0 +1,378 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.PriorityQueue;
+
+/**
+ * Multiplies two polynomials stored in the binary format of PolynomialCodec, for products that are too
+ * large to hold on the heap as DoublyLinkedLists.
+ * 
+ * The operands are memory-mapped rather than loaded. They are split into blocks that are small enough
+ * that the partial product of one block of each fits within the memory budget. Every partial product is
+ * sorted, has its like terms combined, and is streamed to a scratch file as a run of (exponent, coefficient)
+ * pairs. The runs are then merged, again like terms being combined, at most fanIn of them at a time.
+ * While there are more runs than that, groups of them are merged into longer runs, and the last pass
+ * streams into the result file.
+ * 
+ * Runs are read and written through small buffers rather than mapped, so the number of runs is only
+ * limited by disk space. The heap used for blocks, partial products and buffers stays within the budget.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class OutOfCoreMultiplier {
+	
+	//Bytes of heap used per term of a partial product: a sort key, a coefficient, and the combined term
+	static final int BYTES_PER_PRODUCT = 28;
+	
+	//Bytes of heap used per term of an operand block, and per term of a run (an exponent and a coefficient)
+	static final int BYTES_PER_TERM = 12;
+	
+	//The largest buffer a run or the result is read or written through
+	static final int MAX_BUFFER = 1 << 16;
+	
+	//The smallest buffer, which must hold at least one run term
+	static final int MIN_BUFFER = 64;
+	
+	//The most runs merged at once, which also bounds the number of files open together
+	static final int MAX_FAN_IN = 128;
+	
+	long memoryBudget;
+	
+	//The size of each read and write buffer, and how many runs are merged at a time
+	int bufferSize, fanIn;
+	
+	/**
+	 * @param memoryBudget : The number of bytes of heap the blocks, partial products and buffers may use.
+	 */
+	public OutOfCoreMultiplier(long memoryBudget){
+		if(memoryBudget < 4 * MIN_BUFFER + BYTES_PER_PRODUCT + 2 * BYTES_PER_TERM)
+			throw new IllegalArgumentException("Memory budget is too small");
+		this.memoryBudget = memoryBudget;
+		
+		//Enough buffers for fanIn runs and the two output streams of the last pass
+		bufferSize = (int) Math.max(MIN_BUFFER, Math.min(MAX_BUFFER, memoryBudget / (MAX_FAN_IN + 2)));
+		fanIn = (int) Math.max(2, Math.min(MAX_FAN_IN, memoryBudget / bufferSize - 2));
+	}
+	
+	public static void main(String[] args){
+		if(args.length != 4){
+			System.out.println("Usage: java OutOfCoreMultiplier <first.poly> <second.poly> <result.poly> <budget in MB>");
+			return;
+		}
+		try{
+			new OutOfCoreMultiplier(Long.parseLong(args[3]) << 20).multiply(Paths.get(args[0]), Paths.get(args[1]), Paths.get(args[2]));
+		}
+		catch(IOException | IllegalArgumentException e){
+			System.out.println("Could not multiply: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Multiplies the polynomials in two binary files and writes the product to a third. The scratch files
+	 * are created in a temporary directory next to the result, and removed afterwards.
+	 * 
+	 * @param firstFile : The first polynomial.
+	 * @param secondFile : The second polynomial.
+	 * @param resultFile : The file the product is written to, replaced if it exists.
+	 * @throws IOException : If an operand could not be read or the result could not be written.
+	 */
+	public void multiply(Path firstFile, Path secondFile, Path resultFile) throws IOException{
+		MappedPolynomial first = PolynomialCodec.map(firstFile);
+		MappedPolynomial second = PolynomialCodec.map(secondFile);
+		
+		Path parent = resultFile.toAbsolutePath().getParent();
+		Path scratchDir = Files.createTempDirectory(parent, "multiply-scratch");
+		try{
+			ArrayList<Path> runs = multiplyBlocks(first, second, scratchDir);
+			mergeRuns(runs, resultFile, scratchDir);
+		}
+		finally{
+			try(DirectoryStream<Path> files = Files.newDirectoryStream(scratchDir)){
+				for(Path file : files)
+					Files.deleteIfExists(file);
+			}
+			Files.deleteIfExists(scratchDir);
+		}
+	}
+	
+	/**
+	 * Computes the partial product of every pair of blocks and spills each one as a run.
+	 * 
+	 * @return : The run files, each a sorted polynomial with its like terms combined.
+	 */
+	ArrayList<Path> multiplyBlocks(MappedPolynomial first, MappedPolynomial second, Path scratchDir) throws IOException{
+		//A block of the second operand is as large as the budget allows, and the first operand's block
+		//is whatever is left over. The number of runs is the same however the budget is split. The budget
+		//covers both blocks, their partial product, and the buffer the run is written through.
+		long available = memoryBudget - bufferSize;
+		long secondLimit = (available - BYTES_PER_TERM) / (BYTES_PER_PRODUCT + 2 * BYTES_PER_TERM);
+		int secondBlock = (int) Math.max(1, Math.min(Math.max(1, second.termCount()), Math.min(Integer.MAX_VALUE - 8, secondLimit)));
+		long firstLimit = (available - (long) BYTES_PER_TERM * secondBlock) / ((long) BYTES_PER_PRODUCT * secondBlock + BYTES_PER_TERM);
+		int firstBlock = (int) Math.max(1, Math.min(Math.max(1, first.termCount()), Math.min((Integer.MAX_VALUE - 8) / secondBlock, firstLimit)));
+		
+		ArrayList<Path> runs = new ArrayList<Path>();
+		int[] firstExponents = new int[firstBlock];
+		double[] firstCoefficients = new double[firstBlock];
+		int[] secondExponents = new int[secondBlock];
+		double[] secondCoefficients = new double[secondBlock];
+		
+		MappedPolynomial.Cursor firstCursor = first.cursor();
+		int firstCount;
+		while((firstCount = readBlock(firstCursor, firstExponents, firstCoefficients)) > 0){
+			MappedPolynomial.Cursor secondCursor = second.cursor();
+			int secondCount;
+			while((secondCount = readBlock(secondCursor, secondExponents, secondCoefficients)) > 0){
+				PackedPolynomial partial = PackedPolynomial.multiplyTerms(firstExponents, firstCoefficients, firstCount,
+						secondExponents, secondCoefficients, secondCount);
+				Path run = scratchDir.resolve("run-" + runs.size());
+				try(RunWriter writer = new RunWriter(run, bufferSize)){
+					for(int i = 0; i < partial.size(); i++)
+						writer.add(partial.getExponent(i), partial.getCoefficient(i));
+				}
+				runs.add(run);
+			}
+		}
+		return runs;
+	}
+	
+	/**
+	 * Reads up to the length of the arrays worth of terms from the cursor.
+	 * 
+	 * @return : The number of terms read, 0 once the cursor has no terms left.
+	 */
+	static int readBlock(MappedPolynomial.Cursor cursor, int[] exponents, double[] coefficients) throws IOException{
+		int count = 0;
+		while(count < exponents.length && cursor.next()){
+			exponents[count] = cursor.exponent();
+			coefficients[count] = cursor.coefficient();
+			count++;
+		}
+		return count;
+	}
+	
+	/**
+	 * Merges the sorted runs into the result file, combining like terms from different runs. While there
+	 * are more than fanIn runs, they are merged in groups of fanIn into longer runs, each group's runs being
+	 * deleted once merged.
+	 */
+	void mergeRuns(ArrayList<Path> runs, Path resultFile, Path scratchDir) throws IOException{
+		int pass = 0;
+		while(runs.size() > fanIn){
+			ArrayList<Path> merged = new ArrayList<Path>();
+			for(int from = 0; from < runs.size(); from += fanIn){
+				ArrayList<Path> group = new ArrayList<Path>(runs.subList(from, Math.min(runs.size(), from + fanIn)));
+				Path run = scratchDir.resolve("pass-" + pass + "-" + merged.size());
+				try(RunWriter writer = new RunWriter(run, bufferSize)){
+					merge(group, writer);
+				}
+				for(Path input : group)
+					Files.delete(input);
+				merged.add(run);
+			}
+			runs = merged;
+			pass++;
+		}
+		
+		try(ResultWriter writer = new ResultWriter(resultFile, scratchDir.resolve("gaps"), bufferSize)){
+			merge(runs, writer);
+		}
+	}
+	
+	/**
+	 * Merges sorted runs, adding up the coefficients of like terms, and passes the terms on in descending
+	 * exponent order.
+	 */
+	void merge(ArrayList<Path> runs, TermWriter out) throws IOException{
+		//The run with the highest current exponent is always at the head of the queue
+		PriorityQueue<RunReader> queue = new PriorityQueue<RunReader>(Math.max(1, runs.size()),
+				(a, b) -> Integer.compare(b.exponent, a.exponent));
+		ArrayList<RunReader> readers = new ArrayList<RunReader>();
+		try{
+			for(Path run : runs){
+				RunReader reader = new RunReader(run, bufferSize);
+				readers.add(reader);
+				if(reader.next())
+					queue.add(reader);
+			}
+			
+			while(!queue.isEmpty()){
+				//Takes every run whose current term has the highest exponent, and adds them up
+				RunReader reader = queue.poll();
+				int exponent = reader.exponent;
+				double coefficient = reader.coefficient;
+				if(reader.next())
+					queue.add(reader);
+				while(!queue.isEmpty() && queue.peek().exponent == exponent){
+					reader = queue.poll();
+					coefficient += reader.coefficient;
+					if(reader.next())
+						queue.add(reader);
+				}
+				out.add(exponent, coefficient);
+			}
+		}
+		finally{
+			for(RunReader reader : readers)
+				reader.close();
+		}
+	}
+	
+	/**
+	 * Somewhere merged terms are written, in descending exponent order.
+	 */
+	interface TermWriter extends Closeable {
+		void add(int exponent, double coefficient) throws IOException;
+	}
+	
+	/**
+	 * Writes a run: (exponent, coefficient) pairs one after another, through a buffer.
+	 */
+	static class RunWriter implements TermWriter {
+		FileChannel channel;
+		ByteBuffer buffer;
+		
+		RunWriter(Path run, int bufferSize) throws IOException{
+			channel = FileChannel.open(run, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			buffer = ByteBuffer.allocate(bufferSize);
+		}
+		
+		public void add(int exponent, double coefficient) throws IOException{
+			if(buffer.remaining() < BYTES_PER_TERM)
+				drain(buffer, channel);
+			buffer.putInt(exponent);
+			buffer.putDouble(coefficient);
+		}
+		
+		public void close() throws IOException{
+			try{
+				drain(buffer, channel);
+			}
+			finally{
+				channel.close();
+			}
+		}
+	}
+	
+	/**
+	 * Reads a run written by RunWriter one term at a time, through a buffer.
+	 */
+	static class RunReader implements Closeable {
+		FileChannel channel;
+		ByteBuffer buffer;
+		int exponent;
+		double coefficient;
+		
+		RunReader(Path run, int bufferSize) throws IOException{
+			channel = FileChannel.open(run, StandardOpenOption.READ);
+			buffer = ByteBuffer.allocate(bufferSize);
+			buffer.flip();
+		}
+		
+		/**
+		 * Moves to the next term.
+		 * 
+		 * @return : true if there was another term, false at the end of the run.
+		 */
+		boolean next() throws IOException{
+			if(buffer.remaining() < BYTES_PER_TERM){
+				buffer.compact();
+				while(buffer.position() < BYTES_PER_TERM && channel.read(buffer) >= 0);
+				buffer.flip();
+				if(buffer.remaining() < BYTES_PER_TERM){
+					if(buffer.hasRemaining())
+						throw new IOException("Scratch run is truncated");
+					return false;
+				}
+			}
+			exponent = buffer.getInt();
+			coefficient = buffer.getDouble();
+			return true;
+		}
+		
+		public void close() throws IOException{
+			channel.close();
+		}
+	}
+	
+	/**
+	 * Writes the result in the binary format of PolynomialCodec. The coefficients are streamed straight
+	 * into the result after its header, while the exponent gaps are streamed into a scratch file and
+	 * appended once every coefficient has been written. The header is filled in last, once the number of
+	 * terms is known.
+	 */
+	static class ResultWriter implements TermWriter {
+		FileChannel result, gaps;
+		ByteBuffer coefficientBuffer, gapBuffer;
+		int termCount = 0, degree = 0, previousExponent = 0;
+		
+		ResultWriter(Path resultFile, Path gapFile, int bufferSize) throws IOException{
+			result = FileChannel.open(resultFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING);
+			try{
+				gaps = FileChannel.open(gapFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+						StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+			}
+			catch(IOException e){
+				result.close();
+				throw e;
+			}
+			coefficientBuffer = ByteBuffer.allocate(bufferSize);
+			gapBuffer = ByteBuffer.allocate(bufferSize);
+			result.position(PolynomialCodec.HEADER_SIZE);
+		}
+		
+		public void add(int exponent, double coefficient) throws IOException{
+			if(coefficientBuffer.remaining() < 8)
+				drain(coefficientBuffer, result);
+			coefficientBuffer.putDouble(coefficient);
+			if(termCount == 0)
+				degree = exponent;
+			else{
+				if(gapBuffer.remaining() < 5)
+					drain(gapBuffer, gaps);
+				PolynomialCodec.writeVarint(gapBuffer, previousExponent - exponent);
+			}
+			previousExponent = exponent;
+			termCount++;
+		}
+		
+		/**
+		 * Appends the exponent gaps after the coefficients and writes the header.
+		 */
+		public void close() throws IOException{
+			try(FileChannel result = this.result; FileChannel gaps = this.gaps){
+				drain(coefficientBuffer, result);
+				drain(gapBuffer, gaps);
+				
+				long gapSize = gaps.size();
+				long copied = 0;
+				while(copied < gapSize)
+					copied += gaps.transferTo(copied, gapSize - copied, result);
+				
+				ByteBuffer header = ByteBuffer.allocate(PolynomialCodec.HEADER_SIZE);
+				PolynomialCodec.writeHeader(header, PolynomialCodec.SPARSE, termCount, degree, previousExponent);
+				header.flip();
+				while(header.hasRemaining())
+					result.write(header, header.position());
+			}
+		}
+	}
+	
+	/**
+	 * Writes out everything in the buffer and empties it.
+	 */
+	static void drain(ByteBuffer buffer, FileChannel channel) throws IOException{
+		buffer.flip();
+		while(buffer.hasRemaining())
+			channel.write(buffer);
+		buffer.clear();
+	}
+}
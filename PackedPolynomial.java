@@ -0,0 +1,249 @@
+import java.util.Arrays;
+import java.util.Iterator;
+
+/**
+ * A polynomial stored as two parallel primitive arrays, one of exponents and one of coefficients, in
+ * descending exponent order. This is the form polynomials take when they are written to or read from
+ * the binary format in PolynomialCodec, and it avoids allocating a Terms node for every term.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class PackedPolynomial {
+	
+	int[] exponents;
+	double[] coefficients;
+	int size;
+	
+	/**
+	 * Creates a polynomial from arrays that are already in descending exponent order. The arrays are
+	 * used as they are, not copied.
+	 * 
+	 * @param exponents : The exponents of the terms, highest first.
+	 * @param coefficients : The coefficients of the terms, in the same order as the exponents.
+	 * @param size : The number of terms in use at the front of both arrays.
+	 */
+	public PackedPolynomial(int[] exponents, double[] coefficients, int size){
+		this.exponents = exponents;
+		this.coefficients = coefficients;
+		this.size = size;
+	}
+	
+	/**
+	 * Copies the terms of a polynomial DoublyLinkedList into arrays. If the list is not already in
+	 * descending exponent order, the copied terms are sorted (equal exponents keep their list order).
+	 * 
+	 * @param polynomial : The DoublyLinkedList to copy.
+	 * @return : A PackedPolynomial with the same terms.
+	 */
+	public static PackedPolynomial fromList(DoublyLinkedList<Terms> polynomial){
+		int n = polynomial.size();
+		int[] exponents = new int[n];
+		double[] coefficients = new double[n];
+		boolean sorted = true;
+		
+		int i = 0;
+		Iterator<Terms> it = polynomial.iterator();
+		while(it.hasNext()){
+			Terms term = it.next();
+			exponents[i] = term.getExponent();
+			coefficients[i] = term.getCoefficient();
+			if(i > 0 && exponents[i] > exponents[i-1])
+				sorted = false;
+			i++;
+		}
+		
+		PackedPolynomial packed = new PackedPolynomial(exponents, coefficients, n);
+		if(!sorted)
+			packed.sortDescending();
+		return packed;
+	}
+	
+	/**
+	 * Turns the terms back into a DoublyLinkedList of Terms nodes, in the same order.
+	 * 
+	 * @return : A new DoublyLinkedList holding one Terms node per term.
+	 */
+	public DoublyLinkedList<Terms> toList(){
+		DoublyLinkedList<Terms> polynomial = new DoublyLinkedList<Terms>();
+		for(int i = 0; i < size; i++)
+			polynomial.add(new Terms(coefficients[i], exponents[i]));
+		return polynomial;
+	}
+	
+	public int size(){
+		return size;
+	}
+	
+	public int getExponent(int i){
+		return exponents[i];
+	}
+	
+	public double getCoefficient(int i){
+		return coefficients[i];
+	}
+	
+	/**
+	 * @return : The highest exponent, or 0 for a polynomial with no terms.
+	 */
+	public int degree(){
+		return size == 0 ? 0 : exponents[0];
+	}
+	
+	/**
+	 * @return : The lowest exponent, or 0 for a polynomial with no terms.
+	 */
+	public int lowestExponent(){
+		return size == 0 ? 0 : exponents[size-1];
+	}
+	
+	/**
+	 * Multiplies two blocks of terms, and returns their product in descending exponent order with like
+	 * terms combined.
+	 */
+	static PackedPolynomial multiplyTerms(int[] firstExponents, double[] firstCoefficients, int firstCount,
+			int[] secondExponents, double[] secondCoefficients, int secondCount){
+		int n = firstCount * secondCount;
+		
+		//Each product is sorted by a key holding its exponent in the high bits and its position in the
+		//low bits, so the coefficients don't have to move during the sort
+		long[] keys = new long[n];
+		double[] coefficients = new double[n];
+		int k = 0;
+		for(int i = 0; i < firstCount; i++){
+			for(int j = 0; j < secondCount; j++){
+				keys[k] = ((long) (firstExponents[i] + secondExponents[j]) << 32) | k;
+				coefficients[k] = firstCoefficients[i] * secondCoefficients[j];
+				k++;
+			}
+		}
+		return fromProducts(keys, coefficients, n);
+	}
+	
+	/**
+	 * Sorts term products and adds up the coefficients of like terms.
+	 * 
+	 * @param keys : For each product, its exponent in the high 32 bits and its position in coefficients
+	 * in the low 32 bits. These are sorted in place.
+	 * @param coefficients : The coefficient of each product.
+	 * @param n : The number of products.
+	 * @return : The products as a polynomial, in descending exponent order with like terms combined.
+	 */
+	static PackedPolynomial fromProducts(long[] keys, double[] coefficients, int n){
+		Arrays.sort(keys, 0, n);
+		
+		//Walks the keys from the highest exponent down, adding up the coefficients of like terms
+		int[] resultExponents = new int[n];
+		double[] resultCoefficients = new double[n];
+		int size = 0;
+		for(int i = n - 1; i >= 0; i--){
+			int exponent = (int) (keys[i] >> 32);
+			double coefficient = coefficients[(int) keys[i]];
+			if(size > 0 && resultExponents[size-1] == exponent)
+				resultCoefficients[size-1] += coefficient;
+			else{
+				resultExponents[size] = exponent;
+				resultCoefficients[size] = coefficient;
+				size++;
+			}
+		}
+		return new PackedPolynomial(resultExponents, resultCoefficients, size);
+	}
+	
+	/**
+	 * Multiplies two polynomials, keeping only the terms of the product with exponents below order. Pairs
+	 * of terms whose product would be left out are never multiplied.
+	 * 
+	 * @param first : The first polynomial, in descending exponent order.
+	 * @param second : The second polynomial, in descending exponent order.
+	 * @param order : The exponent from which terms of the product are left out.
+	 * @return : The truncated product, in descending exponent order with like terms combined.
+	 */
+	static PackedPolynomial multiplyTruncated(PackedPolynomial first, PackedPolynomial second, int order){
+		//For each term of the first polynomial, the terms of the second that it's multiplied by start at
+		//the first exponent below order - exponent
+		int[] starts = new int[first.size];
+		long products = 0;
+		for(int i = 0; i < first.size; i++){
+			starts[i] = ParallelMultiplier.firstBelow(second, 0, second.size, (int) Math.min(Integer.MAX_VALUE,
+					Math.max(Integer.MIN_VALUE, (long) order - first.exponents[i])));
+			products += second.size - starts[i];
+		}
+		
+		long[] keys = new long[(int) products];
+		double[] coefficients = new double[(int) products];
+		int k = 0;
+		for(int i = 0; i < first.size; i++){
+			for(int j = starts[i]; j < second.size; j++){
+				keys[k] = ((long) (first.exponents[i] + second.exponents[j]) << 32) | k;
+				coefficients[k] = first.coefficients[i] * second.coefficients[j];
+				k++;
+			}
+		}
+		return fromProducts(keys, coefficients, k);
+	}
+	
+	/**
+	 * Merges a range of terms from each of two polynomials into a new polynomial, adding together the
+	 * coefficients of terms with the same exponent. Both ranges must be in descending exponent order with
+	 * no repeated exponents.
+	 * 
+	 * @return : The merged terms, in descending exponent order.
+	 */
+	static PackedPolynomial merge(PackedPolynomial first, int firstFrom, int firstTo,
+			PackedPolynomial second, int secondFrom, int secondTo){
+		int[] exponents = new int[(firstTo - firstFrom) + (secondTo - secondFrom)];
+		double[] coefficients = new double[exponents.length];
+		int i = firstFrom, j = secondFrom, size = 0;
+		while(i < firstTo || j < secondTo){
+			if(j == secondTo || (i < firstTo && first.exponents[i] > second.exponents[j])){
+				exponents[size] = first.exponents[i];
+				coefficients[size] = first.coefficients[i++];
+			}
+			else if(i == firstTo || second.exponents[j] > first.exponents[i]){
+				exponents[size] = second.exponents[j];
+				coefficients[size] = second.coefficients[j++];
+			}
+			else{
+				exponents[size] = first.exponents[i];
+				coefficients[size] = first.coefficients[i++] + second.coefficients[j++];
+			}
+			size++;
+		}
+		return new PackedPolynomial(exponents, coefficients, size);
+	}
+	
+	/**
+	 * Joins polynomials end to end into one. Every exponent in a polynomial must be lower than every
+	 * exponent in the one before it.
+	 * 
+	 * @return : The joined terms, in descending exponent order.
+	 */
+	static PackedPolynomial concat(PackedPolynomial first, PackedPolynomial second){
+		int[] exponents = Arrays.copyOf(first.exponents, first.size + second.size);
+		double[] coefficients = Arrays.copyOf(first.coefficients, exponents.length);
+		System.arraycopy(second.exponents, 0, exponents, first.size, second.size);
+		System.arraycopy(second.coefficients, 0, coefficients, first.size, second.size);
+		return new PackedPolynomial(exponents, coefficients, exponents.length);
+	}
+	
+	/**
+	 * Sorts the terms into descending exponent order. Terms with equal exponents keep their relative order.
+	 */
+	void sortDescending(){
+		//Sorting the indices keeps the sort stable, and lets both arrays be rearranged the same way
+		Integer[] order = new Integer[size];
+		for(int i = 0; i < size; i++)
+			order[i] = i;
+		Arrays.sort(order, (a, b) -> Integer.compare(exponents[b], exponents[a]));
+		
+		int[] sortedExponents = new int[size];
+		double[] sortedCoefficients = new double[size];
+		for(int i = 0; i < size; i++){
+			sortedExponents[i] = exponents[order[i]];
+			sortedCoefficients[i] = coefficients[order[i]];
+		}
+		exponents = sortedExponents;
+		coefficients = sortedCoefficients;
+	}
+}
@@ -0,0 +1,249 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Multiplies large polynomials on several threads using a ForkJoinPool.
+ * 
+ * The first operand is split in half repeatedly until each piece multiplied by the whole second operand
+ * is small enough to do on one thread. Each of these pieces builds its product in its own primitive
+ * arrays, either in a dense array indexed by exponent when its exponents are close together, or by
+ * sorting otherwise. The partial products are then merged back together, pairwise, with large merges
+ * themselves being split across threads by exponent.
+ * 
+ * Products smaller than PARALLEL_THRESHOLD aren't worth the overhead, and should be computed with the
+ * sequential multiply in Polynomial instead.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class ParallelMultiplier {
+	
+	//The number of term products below which Polynomial stays on its sequential multiply
+	static final long PARALLEL_THRESHOLD = 1 << 16;
+	
+	//The number of term products a single task computes
+	static final long LEAF_PRODUCTS = 1 << 14;
+	
+	//The number of terms below which a merge is done on a single thread
+	static final int LEAF_MERGE = 1 << 13;
+	
+	/**
+	 * Checks the parallel product against the sequential one on shapes that have broken the split before,
+	 * printing the result of each check.
+	 * 
+	 * Usage: java ParallelMultiplier
+	 */
+	public static void main(String[] args){
+		//Two far apart blocks of terms times two far apart terms. Each merge has a range in which every
+		//exponent of the other range is above its middle term.
+		int[] exponents = new int[1 << 15];
+		double[] coefficients = new double[exponents.length];
+		for(int i = 0; i < exponents.length; i++){
+			exponents[i] = i < (1 << 14) ? 1016383 - i : (1 << 15) - 1 - i;
+			coefficients[i] = 1;
+		}
+		PackedPolynomial blocks = new PackedPolynomial(exponents, coefficients, exponents.length);
+		PackedPolynomial apart = new PackedPolynomial(new int[]{1500000, 0}, new double[]{1, 1}, 2);
+		
+		boolean passed = check("blocks times two terms", blocks, apart);
+		passed &= check("two terms times blocks", apart, blocks);
+		if(!passed)
+			System.exit(1);
+	}
+	
+	/**
+	 * Multiplies two polynomials both ways and prints whether the products are the same.
+	 */
+	static boolean check(String name, PackedPolynomial first, PackedPolynomial second){
+		PackedPolynomial expected = PackedPolynomial.multiplyTerms(first.exponents, first.coefficients, first.size(),
+				second.exponents, second.coefficients, second.size());
+		PackedPolynomial actual = multiply(first, second);
+		boolean same = expected.size() == actual.size();
+		for(int i = 0; same && i < expected.size(); i++){
+			same = expected.getExponent(i) == actual.getExponent(i)
+					&& expected.getCoefficient(i) == actual.getCoefficient(i);
+		}
+		System.out.println(name + (same ? ": same" : ": DIFFERENT"));
+		return same;
+	}
+	
+	/**
+	 * Multiplies two polynomials on the common ForkJoinPool.
+	 * 
+	 * Like terms are added up in a different order than in Polynomial's sequential multiply, so the
+	 * last digits of a coefficient can differ from it (48.544900000000005 rather than 48.5449, say).
+	 * 
+	 * @param first : The first polynomial, in descending exponent order with no repeated exponents.
+	 * @param second : The second polynomial, in descending exponent order with no repeated exponents.
+	 * @return : The product, in descending exponent order with like terms combined.
+	 */
+	public static PackedPolynomial multiply(PackedPolynomial first, PackedPolynomial second){
+		return multiply(first, second, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Multiplies two polynomials on the given pool.
+	 * 
+	 * @param first : The first polynomial, in descending exponent order with no repeated exponents.
+	 * @param second : The second polynomial, in descending exponent order with no repeated exponents.
+	 * @param pool : The pool the work is split across.
+	 * @return : The product, in descending exponent order with like terms combined.
+	 */
+	public static PackedPolynomial multiply(PackedPolynomial first, PackedPolynomial second, ForkJoinPool pool){
+		if(first.size() == 0 || second.size() == 0)
+			return new PackedPolynomial(new int[0], new double[0], 0);
+		return pool.invoke(new MultiplyTask(first, second, 0, first.size()));
+	}
+	
+	/**
+	 * Multiplies the terms from..to of the first operand by every term of the second.
+	 */
+	static class MultiplyTask extends RecursiveTask<PackedPolynomial> {
+		private static final long serialVersionUID = 1L;
+		
+		PackedPolynomial first, second;
+		int from, to;
+		
+		MultiplyTask(PackedPolynomial first, PackedPolynomial second, int from, int to){
+			this.first = first;
+			this.second = second;
+			this.from = from;
+			this.to = to;
+		}
+		
+		protected PackedPolynomial compute(){
+			if(to - from == 1 || (long) (to - from) * second.size() <= LEAF_PRODUCTS)
+				return multiplyRange(first, from, to, second);
+			
+			int mid = (from + to) >>> 1;
+			MultiplyTask left = new MultiplyTask(first, second, from, mid);
+			MultiplyTask right = new MultiplyTask(first, second, mid, to);
+			left.fork();
+			PackedPolynomial rightProduct = right.compute();
+			PackedPolynomial leftProduct = left.join();
+			return new MergeTask(leftProduct, 0, leftProduct.size(), rightProduct, 0, rightProduct.size()).compute();
+		}
+	}
+	
+	/**
+	 * Merges a range of terms from each of two products, adding like terms.
+	 */
+	static class MergeTask extends RecursiveTask<PackedPolynomial> {
+		private static final long serialVersionUID = 1L;
+		
+		PackedPolynomial first, second;
+		int firstFrom, firstTo, secondFrom, secondTo;
+		
+		MergeTask(PackedPolynomial first, int firstFrom, int firstTo, PackedPolynomial second, int secondFrom, int secondTo){
+			this.first = first;
+			this.firstFrom = firstFrom;
+			this.firstTo = firstTo;
+			this.second = second;
+			this.secondFrom = secondFrom;
+			this.secondTo = secondTo;
+		}
+		
+		protected PackedPolynomial compute(){
+			if((firstTo - firstFrom) + (secondTo - secondFrom) <= LEAF_MERGE || firstTo == firstFrom || secondTo == secondFrom)
+				return PackedPolynomial.merge(first, firstFrom, firstTo, second, secondFrom, secondTo);
+			
+			//Splits both ranges at the exponent in the middle of the longer one. Everything on the left
+			//is above that exponent and everything on the right is at or below it, so like terms always
+			//end up in the same half and the two halves can simply be joined. The longer range has at
+			//least two terms, and the pivot is never its first, so each half gets at least one of them.
+			int pivot;
+			if(firstTo - firstFrom >= secondTo - secondFrom)
+				pivot = first.getExponent((firstFrom + firstTo) >>> 1);
+			else
+				pivot = second.getExponent((secondFrom + secondTo) >>> 1);
+			int firstSplit = firstAtOrBelow(first, firstFrom, firstTo, pivot);
+			int secondSplit = firstAtOrBelow(second, secondFrom, secondTo, pivot);
+			
+			MergeTask left = new MergeTask(first, firstFrom, firstSplit, second, secondFrom, secondSplit);
+			MergeTask right = new MergeTask(first, firstSplit, firstTo, second, secondSplit, secondTo);
+			left.fork();
+			PackedPolynomial rightMerged = right.compute();
+			return PackedPolynomial.concat(left.join(), rightMerged);
+		}
+	}
+	
+	/**
+	 * Binary searches a descending range for the first term with an exponent at or below the given one.
+	 */
+	static int firstAtOrBelow(PackedPolynomial poly, int from, int to, int exponent){
+		int low = from, high = to;
+		while(low < high){
+			int mid = (low + high) >>> 1;
+			if(poly.getExponent(mid) > exponent)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+	
+	/**
+	 * Binary searches a descending range for the first term with an exponent below the given one.
+	 */
+	static int firstBelow(PackedPolynomial poly, int from, int to, int exponent){
+		int low = from, high = to;
+		while(low < high){
+			int mid = (low + high) >>> 1;
+			if(poly.getExponent(mid) >= exponent)
+				low = mid + 1;
+			else
+				high = mid;
+		}
+		return low;
+	}
+	
+	/**
+	 * Multiplies the terms from..to of the first polynomial by the whole second polynomial on this thread.
+	 * When the product's exponents span a range not much larger than the number of term products, they
+	 * are added up in an array indexed by exponent. Otherwise the products are sorted.
+	 */
+	static PackedPolynomial multiplyRange(PackedPolynomial first, int from, int to, PackedPolynomial second){
+		int highest = first.getExponent(from) + second.degree();
+		int lowest = first.getExponent(to - 1) + second.lowestExponent();
+		long range = (long) highest - lowest + 1;
+		long products = (long) (to - from) * second.size();
+		
+		if(range > 2 * products){
+			int[] exponents = Arrays.copyOfRange(first.exponents, from, to);
+			double[] coefficients = Arrays.copyOfRange(first.coefficients, from, to);
+			return PackedPolynomial.multiplyTerms(exponents, coefficients, to - from,
+					second.exponents, second.coefficients, second.size());
+		}
+		
+		//Index 0 holds the highest exponent. present tells apart a term whose coefficients added up to
+		//zero, which is kept, from an exponent that no product landed on.
+		double[] dense = new double[(int) range];
+		boolean[] present = new boolean[(int) range];
+		for(int i = from; i < to; i++){
+			int offset = first.getExponent(from) - first.getExponent(i);
+			double coefficient = first.getCoefficient(i);
+			for(int j = 0; j < second.size(); j++){
+				int index = offset + (second.degree() - second.getExponent(j));
+				dense[index] += coefficient * second.getCoefficient(j);
+				present[index] = true;
+			}
+		}
+		
+		int size = 0;
+		for(int k = 0; k < present.length; k++){
+			if(present[k])
+				size++;
+		}
+		int[] exponents = new int[size];
+		double[] coefficients = new double[size];
+		size = 0;
+		for(int k = 0; k < present.length; k++){
+			if(present[k]){
+				exponents[size] = highest - k;
+				coefficients[size++] = dense[k];
+			}
+		}
+		return new PackedPolynomial(exponents, coefficients, size);
+	}
+}
@@ -1,4 +1,6 @@
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.ListIterator;
 import java.util.StringTokenizer;
 
 /**
@@ -31,8 +33,14 @@ public class Polynomial {
 	int firstPolyTermCount, secondPolyTermCount;
 	boolean didSwitch = false, validFirstPoly = true, validSecondPoly = true, fromSubtract = false, fromMultiply = false;
 	
+	//The formatted polynomials and operation, shown above the answer. Only set for valid entries.
+	String formattedPolynomials = "";
+	
 	//A helper class that contains several formatting and utility methods
-	PolynomialHelper polyHelp = new PolynomialHelper();
+	PolynomialHelper polyHelp;
+	
+	//Which stages have already been done. A lazy Polynomial only does each stage once something needs it.
+	boolean parsed = false, simplified = false, computed = false;
 	
 	/**
 	 * The constructor for the Polynomial class. It takes three String variables, the first two of which
@@ -45,33 +53,91 @@ public class Polynomial {
 	 * @param op : The third line in the three-line entry. Also the operation
 	 */
 	public Polynomial(String fp, String sp, String op){
+		this(fp, sp, op, false);
+	}
+	
+	/**
+	 * Creates a Polynomial that, if lazy is true, only records its three strings. Parsing, simplifying and
+	 * computing the answer are then each done the first time something needs them: isValid and getErrors
+	 * only parse, getFormattedPolynomials also simplifies, and the answer is only computed by
+	 * getAnswerPolynomial or toString. A lazy Polynomial shouldn't be shared between threads until its
+	 * answer has been computed.
+	 * 
+	 * @param fp : The first line in the three-line entry. Also the first polynomial
+	 * @param sp : The second line in the three-line entry. Also the second polynomial
+	 * @param op : The third line in the three-line entry. Also the operation
+	 * @param lazy : true to wait until each stage is needed, false to compute the answer straight away
+	 */
+	public Polynomial(String fp, String sp, String op, boolean lazy){
+		polyHelp = new PolynomialHelper();
 		firstPolynomialString = fp;
 		secondPolynomialString = sp;
 		operation = op;
 		
-		//Turns the firstPolynomialString and secondPolynomialString strings into linkedlists, counts
-		//the number of terms in each, and prints them in the specified order (if valid polynomials and
-		//operations were entered).
-		validFirstPoly = polyHelp.parsePolynomialString(firstPolynomialString, firstPolynomial, true);
-		validSecondPoly = polyHelp.parsePolynomialString(secondPolynomialString, secondPolynomial, false);
-		firstPolyTermCount = polyHelp.termCount(firstPolynomial);
-		secondPolyTermCount = polyHelp.termCount(secondPolynomial);
+		if(!lazy)
+			compute();
+	}
+	
+	/**
+	 * Turns the firstPolynomialString and secondPolynomialString strings into unordered linkedlists,
+	 * counts the number of terms in each, and checks the operation. This is all that's needed to know
+	 * whether the entry is valid.
+	 */
+	void parse(){
+		if(parsed)
+			return;
+		parsed = true;
+		
+		validFirstPoly = polyHelp.parsePolynomialString(firstPolynomialString, firstPolynomial, true, false);
+		validSecondPoly = polyHelp.parsePolynomialString(secondPolynomialString, secondPolynomial, false, false);
+		firstPolyTermCount = firstPolynomial.size();
+		secondPolyTermCount = secondPolynomial.size();
+		
+		//Uses flags to determine if valid polynomials/operations were passed in. If not, an error
+		//message is recorded and the answer will be left empty
+		if((!validFirstPoly || !validSecondPoly) && !polyHelp.validOperation(operation))
+			polyHelp.getErrors().add("This equation also contains an invalid operation. Please use 'add' 'subtract' or 'multiply'");
+		else if((validFirstPoly && validSecondPoly) && !polyHelp.validOperation(operation))
+			polyHelp.getErrors().add("Invalid Operation. Please use 'add' 'subtract' or 'multiply'");
+	}
+	
+	/**
+	 * Puts the polynomials in descending exponent order, combines their like terms, and formats them in
+	 * the specified order (if valid polynomials and operations were entered).
+	 */
+	void simplify(){
+		if(simplified)
+			return;
+		parse();
+		simplified = true;
+		
+		DoublyLinkedList<Terms> unordered = firstPolynomial;
+		firstPolynomial = new DoublyLinkedList<Terms>();
+		polyHelp.descendingExponentOrder(unordered, firstPolynomial);
+		unordered = secondPolynomial;
+		secondPolynomial = new DoublyLinkedList<Terms>();
+		polyHelp.descendingExponentOrder(unordered, secondPolynomial);
+		
 		polyHelp.simplify(firstPolynomial);
 		polyHelp.simplify(secondPolynomial);
-		if(validFirstPoly && validSecondPoly && polyHelp.validOperation(operation))
-			polyHelp.printPolynomialsFormat(firstPolynomial, secondPolynomial, operation);
+		if(isValid())
+			formattedPolynomials = polyHelp.formatPolynomials(firstPolynomial, secondPolynomial, operation);
+	}
+	
+	/**
+	 * Performs the operation and puts the answer in descending exponent order.
+	 */
+	void compute(){
+		if(computed)
+			return;
+		simplify();
+		computed = true;
 		
 		//Determines if the first the second polynomials were switched
 		didSwitch = polyHelp.largerPolyFirst(this);
 		
-		//Calls methods and uses flags to determine if valid polynomials/operations were passed in.
-		//If not, an error message is printed and no answer is printed
-		if(validFirstPoly && validSecondPoly && polyHelp.validOperation(operation))
+		if(isValid())
 			unformattedAnswerPolynomial = polyHelp.parseOperationString(operation, this);
-		else if((!validFirstPoly || !validSecondPoly) && !polyHelp.validOperation(operation))
-			System.out.println("This equation also contains an invalid operation. Please use 'add' 'subtract' or 'multiply'");
-		else if((validFirstPoly && validSecondPoly) && !polyHelp.validOperation(operation))
-			System.out.println("Invalid Operation. Please use 'add' 'subtract' or 'multiply'");
 		
 		//Another formatting method
 		polyHelp.descendingExponentOrder(unformattedAnswerPolynomial, answerPolynomial);
@@ -91,6 +157,31 @@ public class Polynomial {
 	public void setSecondPolynomial(DoublyLinkedList<Terms> poly){
 		secondPolynomial = poly;
 	}
+	public DoublyLinkedList<Terms> getAnswerPolynomial(){
+		compute();
+		return answerPolynomial;
+	}
+	public String getFormattedPolynomials(){
+		simplify();
+		return formattedPolynomials;
+	}
+	public ArrayList<String> getErrors(){
+		parse();
+		return polyHelp.getErrors();
+	}
+	public String getOperation(){
+		return operation;
+	}
+	public String getFirstPolynomialString(){
+		return firstPolynomialString;
+	}
+	public String getSecondPolynomialString(){
+		return secondPolynomialString;
+	}
+	public boolean isValid(){
+		parse();
+		return validFirstPoly && validSecondPoly && polyHelp.validOperation(operation);
+	}
 	public int getFirstPolyTermCount(){
 		return firstPolyTermCount;
 	}
@@ -116,7 +207,7 @@ public class Polynomial {
 		boolean first = true;
 		
 		//Adds each term to the string, and adds in an "x^" or "x" when appropriate.
-		Iterator<Terms> polyIterator = answerPolynomial.iterator();
+		Iterator<Terms> polyIterator = getAnswerPolynomial().iterator();
 		while(polyIterator.hasNext()){
 			Terms term = polyIterator.next();
 			if(term.getCoefficient() >= 0 && !first){
@@ -167,20 +258,16 @@ public class Polynomial {
 	 * coefficients. The result of that sum then replaces the coefficient of that term in the first polynomial
 	 * DoublyLinkedList, firstPoly, which effectively becomes are new "answer polynomial."
 	 * If there's a term in the second polynomial (secondPoly) that doesn't share an exponent with another
-	 * term in the first polynomial, then it is manually added onto the end of the first polynomial.
+	 * term in the first polynomial, then it is inserted into the first polynomial where its exponent belongs.
 	 * 
-	 * The altered first polynomial is then returned.
+	 * Both polynomials must be simplified and in descending exponent order, which lets them be merged in
+	 * one pass. The altered first polynomial is then returned, and secondPoly is left empty.
 	 * 
 	 * @param firstPoly : The DoublyLinkedList that represents the first polynomial
 	 * @param secondPoly : The DoublyLinkedList that represents the second polynomial
 	 * @return : A DoublyLinkedList containing the result of adding the two polynomials
 	 */
 	public DoublyLinkedList<Terms> add(DoublyLinkedList<Terms> firstPoly, DoublyLinkedList<Terms> secondPoly){
-		boolean continueFlag = true;
-		
-		Iterator<Terms> firstPolyIterator = firstPoly.iterator();
-		Iterator<Terms> secondPolyIterator = secondPoly.iterator();
-		
 		//These first two if statements check for an empty polynomial. If one is found, then the other is
 		//returned.
 		if(secondPolyTermCount == 0){
@@ -192,37 +279,44 @@ public class Polynomial {
 		}
 		
 		else{
-			//The first while loop iterates through the first polynomial
-			while(firstPolyIterator.hasNext()){
-				Terms firstPolyAdder = firstPolyIterator.next();
-				secondPolyIterator = secondPoly.iterator();
-				continueFlag = true;
+			ListIterator<Terms> firstPolyIterator = firstPoly.listIterator();
+			Iterator<Terms> secondPolyIterator = secondPoly.iterator();
+			
+			//Both polynomials are already simplified and in descending order, so they are merged in a
+			//single pass, the same way two sorted lists are.
+			while(secondPolyIterator.hasNext()){
+				Terms secondPolyAdder = secondPolyIterator.next();
+				Terms firstPolyAdder = null;
 				
-				//The second while loop iterates through the second polynomial
-				while(secondPolyIterator.hasNext() && continueFlag){
-					Terms secondPolyAdder = secondPolyIterator.next();
-					
-					//Checks if the current exponent being checked in the first polynomial matches with
-					//any exponents in the second polynomial. If so, their coefficients are added, and
-					//the term is removed from the second polynomial.
-					if(secondPolyAdder.getExponent() == firstPolyAdder.getExponent()){
-						firstPolyAdder.setCoefficient(firstPolyAdder.getCoefficient() + secondPolyAdder.getCoefficient());
-						secondPolyIterator.remove();
-						
-						//Note the use of the cotinueFlag allows for a quicker adding process.
-						//Since these polynomials are already simplified, once a term with a like exponent
-						//is found in the second polynomial, we can break out of the second while loop
-						continueFlag = false;
+				//Steps past the terms of the first polynomial with larger exponents.
+				while(firstPolyIterator.hasNext()){
+					firstPolyAdder = firstPolyIterator.next();
+					if(firstPolyAdder.getExponent() <= secondPolyAdder.getExponent()){
+						break;
 					}
+					firstPolyAdder = null;
+				}
+				
+				//If the exponents match, their coefficients are added, and the term is removed from the
+				//second polynomial.
+				if(firstPolyAdder != null && firstPolyAdder.getExponent() == secondPolyAdder.getExponent()){
+					firstPolyAdder.setCoefficient(firstPolyAdder.getCoefficient() + secondPolyAdder.getCoefficient());
+					secondPolyIterator.remove();
+				}
+				
+				//Otherwise the term from the second polynomial is inserted in front of the smaller one.
+				else if(firstPolyAdder != null){
+					firstPolyIterator.previous();
+					firstPolyIterator.add(secondPolyAdder);
+					secondPolyIterator.remove();
+				}
+				
+				//Once the first polynomial runs out, the rest of the second polynomial is spliced onto it.
+				else{
+					break;
 				}
 			}
-			
-			//If there was a term in the second polynomial with a unique exponent, it is manually added
-			//to the first polynomial, which is returned.
-			secondPolyIterator = secondPoly.iterator();
-			while(secondPolyIterator.hasNext()){
-				firstPoly.add(secondPolyIterator.next());
-			}
+			firstPoly.splice(secondPoly);
 			return firstPoly;
 		}
 	}
@@ -280,12 +374,23 @@ public class Polynomial {
 	 * 
 	 * Essentially this is an addition of several products, yielding a full product of the two polynomials.
 	 * 
+	 * Products with at least ParallelMultiplier.PARALLEL_THRESHOLD term products are instead handed to
+	 * the ParallelMultiplier, which splits the work across threads. It adds up like terms in a different
+	 * order, so the last digits of its coefficients can differ from what the sequential loop below gives,
+	 * for example 48.544900000000005 rather than 48.5449.
+	 * 
 	 * @param firstPoly : The DoublyLinkedList that represents the first polynomial
 	 * @param secondPoly : The DoublyLinkedList that represents the second polynomial
 	 * @return : A DoublyLinkedList containing the result of multiplying the two polynomials
 	 */
 	public DoublyLinkedList<Terms> multiply(DoublyLinkedList<Terms> firstPoly, DoublyLinkedList<Terms> secondPoly){
 		
+		//Large products are split across threads. The polynomials have already been simplified, so
+		//neither has repeated exponents.
+		if((long) firstPoly.size() * secondPoly.size() >= ParallelMultiplier.PARALLEL_THRESHOLD){
+			return ParallelMultiplier.multiply(PackedPolynomial.fromList(firstPoly), PackedPolynomial.fromList(secondPoly)).toList();
+		}
+		
 		Iterator<Terms>firstPolyIterator = firstPoly.iterator();
 		Iterator<Terms>secondPolyIterator = secondPoly.iterator();
 		
@@ -320,4 +425,21 @@ public class Polynomial {
 		//newPoly, basically a sum of tempPolys, is returned.
 		return newPoly;
 	}
+	
+	/**
+	 * This method multiplies two polynomials like multiply, but only keeps the terms of the product with
+	 * exponents below order, as when multiplying power series modulo x^order.
+	 * 
+	 * Rather than computing the whole product and throwing most of it away, only the pairs of terms whose
+	 * exponents add up to less than order are ever multiplied. For each term in firstPoly, these are the
+	 * terms at the end of secondPoly, which are found with a binary search.
+	 * 
+	 * @param firstPoly : The DoublyLinkedList that represents the first polynomial
+	 * @param secondPoly : The DoublyLinkedList that represents the second polynomial
+	 * @param order : The exponent from which terms of the product are left out
+	 * @return : A DoublyLinkedList containing the truncated product of the two polynomials
+	 */
+	public DoublyLinkedList<Terms> multiplyTruncated(DoublyLinkedList<Terms> firstPoly, DoublyLinkedList<Terms> secondPoly, int order){
+		return PackedPolynomial.multiplyTruncated(PackedPolynomial.fromList(firstPoly), PackedPolynomial.fromList(secondPoly), order).toList();
+	}
 }
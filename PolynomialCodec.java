@@ -0,0 +1,188 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads and writes polynomials in a compact binary format, so that results can be passed from one job
+ * to the next without being formatted as decimal text and parsed again.
+ * 
+ * Every file starts with a fixed size header:
+ * 
+ * 		magic "POLY" (4 bytes), version (1 byte), representation (1 byte), two unused bytes,
+ * 		term count (int), degree (int), lowest exponent (int)
+ * 
+ * followed by the coefficients as doubles, highest exponent first. A DENSE polynomial has a term for
+ * every exponent from its degree down to its lowest exponent, so no exponents are stored at all. A SPARSE
+ * polynomial is followed by the gaps between consecutive exponents, each written as an unsigned varint
+ * (7 bits per byte, lowest bits first). The first exponent is the degree, so it has no gap.
+ * 
+ * All numbers are big-endian. The representation is chosen when writing: DENSE is only used when it
+ * describes the terms exactly, so reading a file always gives back the same terms that were written.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class PolynomialCodec {
+	
+	static final int MAGIC = 0x504F4C59;
+	static final byte VERSION = 1;
+	static final byte SPARSE = 0;
+	static final byte DENSE = 1;
+	static final int HEADER_SIZE = 20;
+	
+	//Offsets of the header fields
+	static final int VERSION_OFFSET = 4;
+	static final int REPRESENTATION_OFFSET = 5;
+	static final int TERM_COUNT_OFFSET = 8;
+	static final int DEGREE_OFFSET = 12;
+	static final int LOWEST_EXPONENT_OFFSET = 16;
+	
+	/**
+	 * Writes the polynomial to a file in the binary format, replacing the file if it already exists.
+	 * 
+	 * @param poly : The polynomial to write, in descending exponent order.
+	 * @param file : The file to write to.
+	 * @throws IOException : If the file could not be written.
+	 */
+	public static void write(PackedPolynomial poly, Path file) throws IOException{
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING)){
+			ByteBuffer buffer = encode(poly);
+			while(buffer.hasRemaining())
+				channel.write(buffer);
+		}
+	}
+	
+	/**
+	 * Writes the polynomial into a new buffer in the binary format.
+	 * 
+	 * @param poly : The polynomial to encode, in descending exponent order.
+	 * @return : A buffer positioned at the start of the encoded polynomial.
+	 */
+	public static ByteBuffer encode(PackedPolynomial poly){
+		int n = poly.size();
+		boolean dense = isDense(poly);
+		
+		//A gap takes at most 5 bytes as a varint, which bounds the size of the exponent section
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + n * 8 + (dense ? 0 : n * 5));
+		writeHeader(buffer, dense ? DENSE : SPARSE, n, poly.degree(), poly.lowestExponent());
+		for(int i = 0; i < n; i++)
+			buffer.putDouble(poly.getCoefficient(i));
+		if(!dense){
+			for(int i = 1; i < n; i++)
+				writeVarint(buffer, poly.getExponent(i-1) - poly.getExponent(i));
+		}
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * Reads a polynomial file into arrays.
+	 * 
+	 * @param file : The file to read.
+	 * @return : The polynomial that was stored in the file.
+	 * @throws IOException : If the file could not be read, or is not in the binary format.
+	 */
+	public static PackedPolynomial read(Path file) throws IOException{
+		return decode(map(file));
+	}
+	
+	/**
+	 * Decodes a polynomial from a view of an encoded buffer into arrays.
+	 * 
+	 * @param view : The encoded polynomial.
+	 * @return : The decoded polynomial.
+	 * @throws IOException : If the exponents are truncated or corrupt.
+	 */
+	public static PackedPolynomial decode(MappedPolynomial view) throws IOException{
+		int n = view.termCount();
+		int[] exponents = new int[n];
+		double[] coefficients = new double[n];
+		
+		int i = 0;
+		MappedPolynomial.Cursor cursor = view.cursor();
+		while(cursor.next()){
+			exponents[i] = cursor.exponent();
+			coefficients[i] = cursor.coefficient();
+			i++;
+		}
+		return new PackedPolynomial(exponents, coefficients, n);
+	}
+	
+	/**
+	 * Maps a polynomial file into memory without copying its terms. The terms are read straight out of
+	 * the mapped file through the returned view.
+	 * 
+	 * @param file : The file to map.
+	 * @return : A read-only view of the polynomial in the file.
+	 * @throws IOException : If the file could not be mapped, or is not in the binary format.
+	 */
+	public static MappedPolynomial map(Path file) throws IOException{
+		try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)){
+			return new MappedPolynomial(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+	
+	/**
+	 * Writes the header of an encoded polynomial at the buffer's current position.
+	 */
+	static void writeHeader(ByteBuffer buffer, byte representation, int termCount, int degree, int lowestExponent){
+		buffer.putInt(MAGIC);
+		buffer.put(VERSION);
+		buffer.put(representation);
+		buffer.putShort((short) 0);
+		buffer.putInt(termCount);
+		buffer.putInt(degree);
+		buffer.putInt(lowestExponent);
+	}
+	
+	/**
+	 * A polynomial is dense when it has exactly one term for every exponent between its degree and its
+	 * lowest exponent.
+	 */
+	static boolean isDense(PackedPolynomial poly){
+		int n = poly.size();
+		if(n == 0 || (long) poly.degree() - poly.lowestExponent() + 1 != n)
+			return false;
+		for(int i = 1; i < n; i++){
+			if(poly.getExponent(i) != poly.getExponent(i-1) - 1)
+				return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Writes a number 7 bits at a time, lowest bits first. The top bit of each byte is set when more bytes
+	 * follow. The number is treated as unsigned, so a gap above Integer.MAX_VALUE, which wraps around to a
+	 * negative int, is written as the 32-bit value it really is.
+	 */
+	static void writeVarint(ByteBuffer buffer, int value){
+		while((value & ~0x7F) != 0){
+			buffer.put((byte) ((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte) value);
+	}
+	
+	/**
+	 * Reads a number written by writeVarint, as an unsigned value. A number longer than 5 bytes, which
+	 * writeVarint never writes, comes back as -1.
+	 * 
+	 * @throws java.nio.BufferUnderflowException : If the buffer ends before the number does.
+	 */
+	static long readVarint(ByteBuffer buffer){
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do{
+			if(shift > 28)
+				return -1;
+			b = buffer.get();
+			value |= (long) (b & 0x7F) << shift;
+			shift += 7;
+		}while((b & 0x80) != 0);
+		return value;
+	}
+}
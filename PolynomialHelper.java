@@ -1,3 +1,8 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.StringTokenizer;
 
@@ -14,10 +19,21 @@ import java.util.StringTokenizer;
  */
 public class PolynomialHelper {
 	
+	//The error messages found while processing the polynomials, in the order they were found. These are
+	//collected rather than printed, so that the caller decides where they go.
+	ArrayList<String> errors = new ArrayList<String>();
+	
+	//Orders terms from the highest exponent to the lowest.
+	static final Comparator<Terms> DESCENDING_EXPONENT = (a, b) -> Integer.compare(b.getExponent(), a.getExponent());
+	
 	public PolynomialHelper(){
 
 	}
 	
+	public ArrayList<String> getErrors(){
+		return errors;
+	}
+	
 	/**
 	 * This method is a way of turning an input string into a DoublyLinkedList. Tokenizer is used
 	 * to create coefficient and exponent data values, which are in turn used to create "Terms" nodes
@@ -28,9 +44,13 @@ public class PolynomialHelper {
 	 * actually contains the correctly formatted version of the polynomial linked list, and is used in
 	 * future calculations.
 	 * 
-	 * Takes parameter isFirst to determine which error message should be printed. If the first polynomial
+	 * Takes parameter isFirst to determine which error message should be recorded. If the first polynomial
 	 * is being processed, isFirst is true. If the second polynomial is being processed, isFirst is false.
 	 * 
+	 * If the line is an '@' followed by a file name, the polynomial is instead read from that file, which
+	 * must be in the binary format written by PolynomialCodec. If the line starts with "interpolate", the
+	 * numbers after it are read as (x, y) pairs, and the polynomial is the one passing through those points.
+	 * 
 	 * @param line : The input string, containing numbers separated by spaces, representing a polynomial.
 	 * @param polynomial : The DoublyLinkedList that will contain nodes corresponding to the original input line.
 	 * @param isFirst: boolean used to determine whether first or second polynomial is being processed.
@@ -38,6 +58,26 @@ public class PolynomialHelper {
 	 * @throws IllegalArgumentException : Catches any input errors in the string.
 	 */
 	public boolean parsePolynomialString(String line, DoublyLinkedList<Terms> polynomial, boolean isFirst) throws IllegalArgumentException{
+		return parsePolynomialString(line, polynomial, isFirst, true);
+	}
+	
+	/**
+	 * The same as the three parameter parsePolynomialString, except that when sort is false, the terms of a
+	 * plain line of numbers are left in the order they were written. This lets a lazy Polynomial check
+	 * that a line is valid without paying for the sort.
+	 * 
+	 * @param line : The input string, containing numbers separated by spaces, representing a polynomial.
+	 * @param polynomial : The DoublyLinkedList that will contain nodes corresponding to the original input line.
+	 * @param isFirst: boolean used to determine whether first or second polynomial is being processed.
+	 * @param sort : Whether the terms are put in descending exponent order.
+	 * @return : boolean. If the string was successfully processed, return true. Otherwise, return false.
+	 */
+	public boolean parsePolynomialString(String line, DoublyLinkedList<Terms> polynomial, boolean isFirst, boolean sort){
+		if(line.trim().startsWith("@"))
+			return readPolynomialFile(line.trim().substring(1), polynomial, isFirst);
+		if(line.trim().toLowerCase().startsWith("interpolate"))
+			return interpolatePoints(line.trim().substring("interpolate".length()), polynomial, isFirst);
+		
 		StringTokenizer token = new StringTokenizer(line, " ");
 		DoublyLinkedList<Terms> tempPolynomial = new DoublyLinkedList<Terms>();
 		
@@ -62,7 +102,13 @@ public class PolynomialHelper {
 										
 				}
 				//Takes the terms in tempPolynomial, and stores them in polynomial in descending exponent order.
-				descendingExponentOrder(tempPolynomial, polynomial);
+				if(sort)
+					descendingExponentOrder(tempPolynomial, polynomial);
+				else{
+					Iterator<Terms> it = tempPolynomial.iterator();
+					while(it.hasNext())
+						polynomial.add(it.next());
+				}
 				
 				//returns true to indicate that the transition between string and LinkedList was successful
 				return true;
@@ -74,58 +120,99 @@ public class PolynomialHelper {
 			}
 		}
 		catch(IllegalArgumentException e){
-			//Prints out an error message, and returns false, used to indicate to the program to stop
+			//Records an error message, and returns false, used to indicate to the program to stop
 			//processing this polynomial operation, and move to the next one.
 			if(isFirst)
-				System.out.println("Invalid first polynomial. Every term needs a coefficient and an integer exponent.");
+				errors.add("Invalid first polynomial. Every term needs a coefficient and an integer exponent.");
 			else
-				System.out.println("Invalid second polynomial. Every term needs a coefficient and an integer exponent.");
+				errors.add("Invalid second polynomial. Every term needs a coefficient and an integer exponent.");
 			return false;
 		}
 	}
 	
 	/**
-	 * This method takes the terms of one DoublyLinkedList, and inserts them into another DoublyLinkedList
-	 * in descending exponent order.
+	 * Reads a polynomial stored in the binary format into a DoublyLinkedList, in descending exponent order.
 	 * 
-	 * Also systematically removes terms from tempPoly, as they get moved over to poly, effectively 
-	 * emptying tempPoly.
+	 * @param fileName : The name of the binary polynomial file.
+	 * @param polynomial : The DoublyLinkedList that will contain the terms from the file.
+	 * @param isFirst : boolean used to determine whether first or second polynomial is being processed.
+	 * @return : boolean. If the file was successfully read, return true. Otherwise, return false.
+	 */
+	private boolean readPolynomialFile(String fileName, DoublyLinkedList<Terms> polynomial, boolean isFirst){
+		try{
+			PackedPolynomial packed = PolynomialCodec.read(Paths.get(fileName));
+			for(int i = 0; i < packed.size(); i++)
+				polynomial.add(new Terms(packed.getCoefficient(i), packed.getExponent(i)));
+			return true;
+		}
+		catch(IOException e){
+			errors.add("Invalid " + (isFirst ? "first" : "second") + " polynomial. Could not read binary polynomial file '"
+					+ fileName + "': " + e.getMessage());
+			return false;
+		}
+	}
+	
+	/**
+	 * Reads (x, y) pairs from a string and stores the polynomial passing through them in a DoublyLinkedList,
+	 * in descending exponent order. Powers whose coefficients come out as zero are left out.
 	 * 
-	 * @param tempPoly : The DoublyLinkedList from which terms will be removed and ordered.
-	 * @param poly : The DoublyLinkedList which will receive terms from tempPoly, and hold them in descending order.
+	 * @param points : The x and y value of each point, separated by spaces.
+	 * @param polynomial : The DoublyLinkedList that will contain the interpolated polynomial.
+	 * @param isFirst : boolean used to determine whether first or second polynomial is being processed.
+	 * @return : boolean. If the points were valid, return true. Otherwise, return false.
 	 */
-	public void descendingExponentOrder(DoublyLinkedList<Terms> tempPoly, DoublyLinkedList<Terms> poly){
-		Iterator<Terms> it = tempPoly.iterator();
-		
-		//index keeps track of how far along the linkedlist the program is, pos holds the index of the highest exponent
-		int index = 0, pos = 0;
-		while(it.hasNext()){
+	private boolean interpolatePoints(String points, DoublyLinkedList<Terms> polynomial, boolean isFirst){
+		StringTokenizer token = new StringTokenizer(points, " ");
+		try{
+			if(token.countTokens() % 2 != 0)
+				throw new IllegalArgumentException();
 			
-			//The term with the biggest exponent is initially set to the first term.
-			Terms biggestTerm = it.next();
-
-			while(it.hasNext()){
-				index++;
-				Terms nextTerm = it.next();
-				
-				//If a larger exponent is found, it becomes the biggestTerm, and its position is recorded
-				if (biggestTerm.getExponent() < nextTerm.getExponent()){
-					biggestTerm = nextTerm;
-					pos = index;
-				}
+			int n = token.countTokens() / 2;
+			if(n > Interpolator.MAX_POINTS)
+				throw new ArithmeticException("More than " + Interpolator.MAX_POINTS + " points can't be interpolated accurately in double precision");
+			double[] x = new double[n];
+			double[] y = new double[n];
+			for(int i = 0; i < n; i++){
+				x[i] = Double.parseDouble(token.nextToken());
+				y[i] = Double.parseDouble(token.nextToken());
 			}
 			
-			//The biggest term is added to the poly DoublyLinkedList.
-			poly.add(biggestTerm);
-			
-			//The term recently added to poly (the term with the largest exponent) is removed.
-			tempPoly.remove(pos);
+			double[] coefficients = Interpolator.interpolate(x, y);
+			for(double coefficient : coefficients){
+				if(!Double.isFinite(coefficient))
+					throw new ArithmeticException("The points can't be interpolated accurately in double precision");
+			}
 			
-			//Values and iterator are reset to find the next term with largest exponent.
-			index=pos=0;
-			it = tempPoly.iterator();
+			PackedPolynomial packed = DensePolynomials.toPacked(coefficients);
+			for(int i = 0; i < packed.size(); i++)
+				polynomial.add(new Terms(packed.getCoefficient(i), packed.getExponent(i)));
+			return true;
+		}
+		catch(ArithmeticException e){
+			errors.add("Invalid " + (isFirst ? "first" : "second")
+					+ " polynomial. " + e.getMessage() + ".");
+			return false;
+		}
+		catch(IllegalArgumentException e){
+			errors.add("Invalid " + (isFirst ? "first" : "second")
+					+ " polynomial. Interpolation needs an x and y value for each point, and no two points can share an x value.");
+			return false;
 		}
-		
+	}
+	
+	/**
+	 * This method takes the terms of one DoublyLinkedList, and inserts them into another DoublyLinkedList
+	 * in descending exponent order.
+	 * 
+	 * tempPoly is merge sorted in place, which keeps terms with equal exponents in their original order,
+	 * and is then spliced onto the end of poly, effectively emptying tempPoly.
+	 * 
+	 * @param tempPoly : The DoublyLinkedList from which terms will be removed and ordered.
+	 * @param poly : The DoublyLinkedList which will receive terms from tempPoly, and hold them in descending order.
+	 */
+	public void descendingExponentOrder(DoublyLinkedList<Terms> tempPoly, DoublyLinkedList<Terms> poly){
+		tempPoly.sort(DESCENDING_EXPONENT);
+		poly.splice(tempPoly);
 	}
 	
 	/**
@@ -138,12 +225,26 @@ public class PolynomialHelper {
 	public boolean validOperation(String op){
 		//Check to see if the input operation is "add","subtract", or "multiply". Space and case is ignored.
 		if(op.replace(" ", "").toLowerCase().equals("add") || op.replace(" ", "").toLowerCase().equals("subtract")
-				|| op.replace(" ", "").toLowerCase().equals("multiply"))
+				|| op.replace(" ", "").toLowerCase().equals("multiply") || truncationOrder(op) >= 0)
 			return true;
 		else 
 			return false;	
 	}
 	
+	/**
+	 * Checks for a truncated multiplication, written as "multiply mod n", which only keeps the terms of the
+	 * product with exponents below n. Space and case is ignored.
+	 * 
+	 * @param op : The string containing the desired operation.
+	 * @return : n, or -1 if the operation isn't a truncated multiplication.
+	 */
+	public int truncationOrder(String op){
+		String name = op.replace(" ", "").toLowerCase();
+		if(!name.matches("multiplymod[0-9]{1,9}"))
+			return -1;
+		return Integer.parseInt(name.substring("multiplymod".length()));
+	}
+	
 	/**
 	 * Returns the number of terms in a polynomial (the number of nodes in the DoublyLinkedList).
 	 * 
@@ -195,6 +296,9 @@ public class PolynomialHelper {
 			else if  (op.replace(" ", "").toLowerCase().equals("multiply")){
 				return polynomials.multiply(polynomials.getFirstPolynomial(), polynomials.getSecondPolynomial());
 			}
+			else if (truncationOrder(op) >= 0){
+				return polynomials.multiplyTruncated(polynomials.getFirstPolynomial(), polynomials.getSecondPolynomial(), truncationOrder(op));
+			}
 			
 			//If no matches are made
 			else{
@@ -203,8 +307,8 @@ public class PolynomialHelper {
 		}
 		
 		catch(IllegalArgumentException e){
-			//Prints an error message and returns an empty DoublyLinkedList.
-			System.out.println("Invalid operation type");
+			//Records an error message and returns an empty DoublyLinkedList.
+			errors.add("Invalid operation type");
 			return new DoublyLinkedList<Terms>();
 		}
 	}
@@ -214,34 +318,22 @@ public class PolynomialHelper {
 	 * terms in a polynomial with an exponent of 2, their coefficients are added, and set to be one of 
 	 * the term's coefficient. The other term is removed.
 	 * 
+	 * The first term seen with each exponent is remembered in a map, so the polynomial is only walked once.
+	 * 
 	 * @param polynomial : The DoublyLinkedList which will be checked for duplicate exponent terms.
 	 */
 	public void simplify(DoublyLinkedList<Terms> polynomial){
+		HashMap<Integer, Terms> firstWithExponent = new HashMap<Integer, Terms>();
 		Iterator<Terms> it = polynomial.iterator();
-		Iterator<Terms> it2 = polynomial.iterator();
-		//While loop runs through first iterator
+		
 		while(it.hasNext()){
-			Terms testTerm = it.next();
-			
-			//The second iterator is reinitialized, to make sure it hits every term.
-			it2 = polynomial.iterator();
+			Terms testAgainstTerm = it.next();
+			Terms testTerm = firstWithExponent.putIfAbsent(testAgainstTerm.getExponent(), testAgainstTerm);
 			
-			//While loop runs through second iterator, to compare every value in the second iterator with
-			//the current one in the first iterator
-			while(it2.hasNext()){
-				Terms testAgainstTerm = it2.next();
-				
-				//If two terms have the same exponent, combine their coefficients and remove the duplicate.
-				//Note that the if statement checks if the terms that are being compared are the same term nodes,
-				//this is to prevent an error where terms are being combined with themselves.
-				if (testAgainstTerm.getExponent() == testTerm.getExponent() && testTerm != testAgainstTerm){
-					testTerm.setCoefficient(testAgainstTerm.getCoefficient() + testTerm.getCoefficient());
-					it2.remove();
-					
-					//The first iterator is reset, to reset the expectedModCount.
-					it = polynomial.iterator();
-				
-				}
+			//If an earlier term has the same exponent, combine their coefficients and remove the duplicate.
+			if (testTerm != null){
+				testTerm.setCoefficient(testAgainstTerm.getCoefficient() + testTerm.getCoefficient());
+				it.remove();
 			}
 		}
 	}
@@ -279,23 +371,25 @@ public class PolynomialHelper {
 	}
 	
 	/**
-	 * Prints the operation process in the specified format. Four lines are printed, the first polynomial,
+	 * Formats the operation process in the specified format. Four lines are produced, the first polynomial,
 	 * followed by the symbol of the operation, followed by the second polynomial, and finally, an equals sign.
 	 * 
 	 * @param firstPoly : The first polynomial DoublyLinkedList.
 	 * @param secondPoly : The second polynomial DoublyLinkedList.
 	 * @param op : the input operation string.
+	 * @return : The four lines, without a line break after the last.
 	 */
-	public void printPolynomialsFormat(DoublyLinkedList<Terms> firstPoly, DoublyLinkedList<Terms> secondPoly, String op){
+	public String formatPolynomials(DoublyLinkedList<Terms> firstPoly, DoublyLinkedList<Terms> secondPoly, String op){
 		String opSign = "";
 		
 		//Determines what sign to use for the operation, based on the input string.
 		if(op.replace(" ", "").toLowerCase().equals("add")) opSign = "+";
 		else if(op.replace(" ", "").toLowerCase().equals("subtract")) opSign = "-";
 		else if(op.replace(" ", "").toLowerCase().equals("multiply")) opSign = "*";
+		else if(truncationOrder(op) >= 0) opSign = "* (mod x^" + truncationOrder(op) + ")";
 		
-		//Prints the formatted firstPoly with the correct operation symbol, formatted secondPoly, and equals sign.
-		System.out.println(format(firstPoly) + "\n" + opSign + "\n" + format(secondPoly) + "\n" + "=");
+		//Joins the formatted firstPoly with the correct operation symbol, formatted secondPoly, and equals sign.
+		return format(firstPoly) + "\n" + opSign + "\n" + format(secondPoly) + "\n" + "=";
 	}
 	
 	/**
@@ -306,7 +400,7 @@ public class PolynomialHelper {
 	 * @param poly : The polynomial DoublyLinkedList that is to be formatted.
 	 * @return : A formatted string version of the polynomial DoublyLinkedList.
 	 */
-	private String format(DoublyLinkedList<Terms> poly){
+	String format(DoublyLinkedList<Terms> poly){
 		String formattedPoly = "";
 		
 		//A flag to determine if we are processing the first term in the polynomial
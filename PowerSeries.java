@@ -0,0 +1,140 @@
+/**
+ * Arithmetic on truncated power series, that is, polynomials modulo x^n, where everything from x^n up is
+ * thrown away. Series are dense arrays of coefficients as in DensePolynomials, a[i] being the coefficient
+ * of x^i, and every result has exactly n coefficients.
+ * 
+ * multiply is a short product: it only works out the n lowest coefficients. Short series multiply the
+ * pairs of terms below x^n directly, which is half the work of a full product. Long ones use Mulders'
+ * split, a full Karatsuba product of the lowest 70% of each series and two short products for the rest.
+ * That needs about a fifth fewer multiplications than a full Karatsuba product, though it runs only 5 to
+ * 20% faster in practice.
+ * 
+ * inverse, log and exp use Newton iteration, which doubles the number of correct coefficients on every
+ * step, so each costs a few multiplications of length n.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class PowerSeries {
+	
+	//Above this length, splitting with Karatsuba beats the schoolbook short product
+	static final int SHORT_PRODUCT_THRESHOLD = 128;
+	
+	//The fraction of each series that goes into the full product when a short product is split
+	static final double SPLIT = 0.7;
+	
+	/**
+	 * @return : The product of a and b modulo x^n.
+	 */
+	public static double[] multiply(double[] a, double[] b, int n){
+		double[] aLow = DensePolynomials.slice(a, 0, Math.min(a.length, n));
+		double[] bLow = DensePolynomials.slice(b, 0, Math.min(b.length, n));
+		if(Math.min(aLow.length, bLow.length) > SHORT_PRODUCT_THRESHOLD)
+			return shortProduct(DensePolynomials.slice(aLow, 0, n), DensePolynomials.slice(bLow, 0, n), n);
+		return schoolbookShortProduct(aLow, bLow, n);
+	}
+	
+	/**
+	 * Mulders' short product of two series of exactly n coefficients. With k = SPLIT n, every pair of terms
+	 * below x^n either has both terms below x^k, which the full product of the lowest k coefficients
+	 * covers, or has one term from x^k up and the other below x^(n-k), which the two short products of
+	 * length n - k cover. k is at least n - k, so no pair is counted twice.
+	 */
+	static double[] shortProduct(double[] a, double[] b, int n){
+		if(n <= SHORT_PRODUCT_THRESHOLD)
+			return schoolbookShortProduct(a, b, n);
+		
+		int k = (int) Math.ceil(SPLIT * n);
+		int rest = n - k;
+		double[] low = DensePolynomials.multiply(DensePolynomials.slice(a, 0, k), DensePolynomials.slice(b, 0, k));
+		double[] product = DensePolynomials.slice(low, 0, n);
+		double[] highA = shortProduct(DensePolynomials.slice(a, k, n), DensePolynomials.slice(b, 0, rest), rest);
+		double[] highB = shortProduct(DensePolynomials.slice(a, 0, rest), DensePolynomials.slice(b, k, n), rest);
+		for(int i = 0; i < rest; i++)
+			product[k + i] += highA[i] + highB[i];
+		return product;
+	}
+	
+	/**
+	 * Multiplies only the pairs of terms with i + j < n.
+	 */
+	static double[] schoolbookShortProduct(double[] a, double[] b, int n){
+		double[] product = new double[n];
+		for(int i = 0; i < a.length; i++){
+			for(int j = 0; j < b.length && i + j < n; j++)
+				product[i + j] += a[i] * b[j];
+		}
+		return product;
+	}
+	
+	/**
+	 * Finds b with a * b = 1 modulo x^n, by Newton iteration: b' = b (2 - a b).
+	 * 
+	 * @throws IllegalArgumentException : If a has no constant term, and so no inverse.
+	 */
+	public static double[] inverse(double[] a, int n) throws IllegalArgumentException{
+		if(a.length == 0 || a[0] == 0)
+			throw new IllegalArgumentException("A series needs a nonzero constant term to have an inverse");
+		
+		double[] b = {1 / a[0]};
+		int k = 1;
+		while(k < n){
+			k = Math.min(2 * k, n);
+			double[] error = multiply(a, b, k);
+			for(int i = 0; i < k; i++)
+				error[i] = -error[i];
+			error[0] += 2;
+			b = multiply(b, error, k);
+		}
+		return DensePolynomials.slice(b, 0, n);
+	}
+	
+	/**
+	 * Finds log(a) modulo x^n, as the integral of a' / a.
+	 * 
+	 * @throws IllegalArgumentException : If the constant term of a isn't 1.
+	 */
+	public static double[] log(double[] a, int n) throws IllegalArgumentException{
+		if(a.length == 0 || a[0] != 1)
+			throw new IllegalArgumentException("A series needs a constant term of 1 to have a logarithm");
+		if(n <= 1)
+			return new double[Math.max(0, n)];
+		
+		double[] quotient = multiply(DensePolynomials.derivative(a), inverse(a, n - 1), n - 1);
+		return integral(quotient, n);
+	}
+	
+	/**
+	 * Finds exp(a) modulo x^n, by Newton iteration: f' = f (1 + a - log f).
+	 * 
+	 * @throws IllegalArgumentException : If a has a constant term.
+	 */
+	public static double[] exp(double[] a, int n) throws IllegalArgumentException{
+		if(a.length > 0 && a[0] != 0)
+			throw new IllegalArgumentException("A series needs no constant term to have an exponential");
+		if(n <= 0)
+			return new double[0];
+		
+		double[] f = {1};
+		int k = 1;
+		while(k < n){
+			k = Math.min(2 * k, n);
+			double[] step = log(DensePolynomials.slice(f, 0, k), k);
+			for(int i = 0; i < k; i++)
+				step[i] = (i < a.length ? a[i] : 0) - step[i];
+			step[0] += 1;
+			f = multiply(f, step, k);
+		}
+		return DensePolynomials.slice(f, 0, n);
+	}
+	
+	/**
+	 * @return : The integral of a with no constant term, modulo x^n.
+	 */
+	static double[] integral(double[] a, int n){
+		double[] result = new double[n];
+		for(int i = 0; i < a.length && i + 1 < n; i++)
+			result[i + 1] = a[i] / (i + 1);
+		return result;
+	}
+}
@@ -1,56 +1,236 @@
 import java.io.BufferedReader;
+import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
 
 /**
  * The driver class for the process of performing an add, subtract or multiply operation on two polynomials.
  * This class reads in lines from a text file, stores them as String values, and then passes them through
  * to the Polynomial class to have an operation performed on them.
  * 
+ * If started with "-server" followed by a port number or a socket file path, the records are instead
+ * read from connections to a CalculatorServer. If started with "-watch" followed by an input and an
+ * output directory, every file in the input directory is processed whenever it changes (see WatchMode).
+ * 
+ * If started with "-binary-out" followed by a directory, each answer is also written to that directory
+ * in the binary format of PolynomialCodec, as result-1.poly, result-2.poly and so on. If started with
+ * "-roots", the roots of each answer are printed after it. Their roots are found in batches, spread across
+ * threads.
+ * 
+ * Results are printed as plain text, unless "-format" is followed by "jsonl" for one line of JSON per
+ * record, or "binary" for the answers in the binary format of PolynomialCodec.
+ * 
+ * If started with "-validate", the records are only checked: each one is reported as valid or with its
+ * errors, and no answers are computed.
+ * 
  * @author Steven Wojsnis
  * Polynomial Operations Project
  * 		CS313, Dr.Svitak
  */
 public class Project1 {
+	
+	//The number of answers whose roots are found together, across threads, when "-roots" is given
+	static final int ROOTS_BATCH = 64;
+	
 	public static void main(String[] args){
-		boolean skip = false;
-		//Accepts only a text file named "project1.txt"
-		try (BufferedReader br = new BufferedReader(new FileReader("project1.txt")))
+		//Runs as a long-lived server instead of processing project1.txt once
+		if(args.length == 2 && args[0].equals("-server")){
+			try{
+				new CalculatorServer(args[1]).serve();
+			}
+			catch(IOException e){
+				System.out.println("Could not start the server on '" + args[1] + "': " + e.getMessage());
+			}
+			return;
+		}
+		
+		//Keeps reprocessing the files in a directory as they change
+		if(args.length == 3 && args[0].equals("-watch")){
+			WatchMode.main(new String[]{args[1], args[2]});
+			return;
+		}
+		
+		Path binaryOutDir = null;
+		boolean printRoots = false;
+		boolean validateOnly = false;
+		String format = "text";
+		for(int i = 0; i < args.length; i++){
+			if(args[i].equals("-binary-out") && i + 1 < args.length)
+				binaryOutDir = Paths.get(args[++i]);
+			else if(args[i].equals("-roots"))
+				printRoots = true;
+			else if(args[i].equals("-validate"))
+				validateOnly = true;
+			else if(args[i].equals("-format") && i + 1 < args.length)
+				format = args[++i];
+		}
+		
+		try(ResultSink sink = createSink(format, BufferedResultSink.standardOutput()))
 		{
-			String line = br.readLine();
-			//While loop runs for as long their is a line with characters on it
-			while(line != null){
-				skip = false;
-				
-				//The first line in the three-line sequence is stored as firstPoly
-				String firstPoly = line;
-				
-				//The second line is stored as secondPoly
-				String secondPoly = br.readLine();
-				
-				//The third line is stored as op
-				String op = br.readLine();
-				
-				//If any of the inputs were null, throw an exception.
-				if(firstPoly == null || secondPoly == null || op == null){
-					skip = true;
-					System.out.println("Each operation requires three lines of input.");
-				}
-					
+			//Accepts only a text file named "project1.txt"
+			try (BufferedReader br = new BufferedReader(new FileReader("project1.txt")))
+			{
+				if(validateOnly)
+					validateRecords(br, sink);
+				else
+					processRecords(br, sink, binaryOutDir, printRoots);
+			}
+			//If a file with an invalid name is used, an error message is shown and the program ends.
+			catch(FileNotFoundException e){
+				sink.error("Please use a text filed named 'project1.txt'");
+			}
+		}
+		catch(IOException e){
+			System.out.println("Could not write the results: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Creates the sink for an output format.
+	 * 
+	 * @param format : "text", "jsonl" or "binary". Anything else is treated as "text".
+	 * @param channel : Where the sink writes.
+	 * @return : A new sink writing in that format.
+	 */
+	public static ResultSink createSink(String format, WritableByteChannel channel){
+		if(format.equals("jsonl"))
+			return new JsonLinesResultSink(channel);
+		else if(format.equals("binary"))
+			return new BinaryResultSink(channel);
+		return new TextResultSink(channel);
+	}
+	
+	/**
+	 * Reads three-line records from the reader until it runs out of lines, and sends each result to
+	 * the sink.
+	 * 
+	 * @param br : The reader that the three-line records are read from.
+	 * @param sink : Where the results are sent.
+	 * @param binaryOutDir : The directory that answers are written to in binary, or null to only send them to the sink.
+	 * @param findRoots : Whether the roots of each answer are found and sent along with it.
+	 * @throws IOException : If the reader fails, or an answer could not be written.
+	 */
+	public static void processRecords(BufferedReader br, ResultSink sink, Path binaryOutDir, boolean findRoots) throws IOException{
+		if(findRoots){
+			processRecordsWithRoots(br, sink, binaryOutDir);
+			return;
+		}
+		
+		int recordNumber = 0;
+		String line = br.readLine();
+		//While loop runs for as long their is a line with characters on it
+		while(line != null){
+			recordNumber++;
+			Polynomial poly = processRecord(line, br.readLine(), br.readLine(), sink, false);
+			writeBinary(poly, binaryOutDir, recordNumber);
+			line = br.readLine();
+		}
+	}
+	
+	/**
+	 * Like processRecords, but computes the records ROOTS_BATCH at a time, and finds the roots of each
+	 * batch of answers together with RootFinder's parallel batch method before sending them in order.
+	 */
+	static void processRecordsWithRoots(BufferedReader br, ResultSink sink, Path binaryOutDir) throws IOException{
+		//The Polynomials of the current batch, null where a record was missing lines
+		ArrayList<Polynomial> batch = new ArrayList<Polynomial>();
+		int recordNumber = 0;
+		String line = br.readLine();
+		while(line != null || !batch.isEmpty()){
+			if(line != null){
+				String secondPoly = br.readLine(), op = br.readLine();
+				batch.add(secondPoly == null || op == null ? null : new Polynomial(line, secondPoly, op));
 				line = br.readLine();
-				
-				if(!skip){
-					//Creates an instance of the Polynomial class, with the firstPoly, secondPoly and op values
-					Polynomial poly = new Polynomial(firstPoly,secondPoly,op);
-				
-					//Prints the polynomials in the correct format, as well as the answer.
-					System.out.println(poly.toString() + "\n");
+				if(line != null && batch.size() < ROOTS_BATCH)
+					continue;
+			}
+			
+			//Finds the roots of every valid answer in the batch at once
+			ArrayList<PackedPolynomial> answers = new ArrayList<PackedPolynomial>();
+			for(Polynomial poly : batch){
+				if(poly != null && poly.isValid())
+					answers.add(PackedPolynomial.fromList(poly.getAnswerPolynomial()));
+			}
+			RootFinder.Roots[] roots = RootFinder.findRoots(answers.toArray(new PackedPolynomial[0]));
+			
+			int found = 0;
+			for(Polynomial poly : batch){
+				recordNumber++;
+				if(poly == null){
+					sink.error("Each operation requires three lines of input.");
+					continue;
 				}
+				sink.result(poly, poly.isValid() ? roots[found++] : null);
+				writeBinary(poly, binaryOutDir, recordNumber);
 			}
+			batch.clear();
 		}
-		//If a file with an invalid name is used, an error message is shown and the program ends.
-		catch(IOException e){
-			System.out.println("Please use a text filed named 'project1.txt'");
+	}
+	
+	/**
+	 * Writes the answer of a valid record to binaryOutDir/result-recordNumber.poly. Only answers of valid
+	 * records are written, so a missing file means the record had an error.
+	 */
+	static void writeBinary(Polynomial poly, Path binaryOutDir, int recordNumber) throws IOException{
+		if(binaryOutDir != null && poly != null && poly.isValid()){
+			PolynomialCodec.write(PackedPolynomial.fromList(poly.getAnswerPolynomial()),
+					binaryOutDir.resolve("result-" + recordNumber + ".poly"));
+		}
+	}
+	
+	/**
+	 * Reads three-line records from the reader until it runs out of lines, and sends whether each one is
+	 * valid to the sink. The Polynomials are lazy, so only the parsing needed to find errors is done.
+	 * 
+	 * @param br : The reader that the three-line records are read from.
+	 * @param sink : Where the validations are sent.
+	 * @throws IOException : If the reader fails, or a validation could not be written.
+	 */
+	public static void validateRecords(BufferedReader br, ResultSink sink) throws IOException{
+		int recordNumber = 0;
+		String line = br.readLine();
+		while(line != null){
+			recordNumber++;
+			String secondPoly = br.readLine(), op = br.readLine();
+			if(secondPoly == null || op == null)
+				sink.error("Each operation requires three lines of input.");
+			else
+				sink.validated(recordNumber, new Polynomial(line, secondPoly, op, true));
+			line = br.readLine();
+		}
+	}
+	
+	/**
+	 * Performs the operation of a single three-line record, and sends the result to the sink.
+	 * 
+	 * @param firstPoly : The first line in the three-line sequence.
+	 * @param secondPoly : The second line in the three-line sequence.
+	 * @param op : The third line in the three-line sequence.
+	 * @param sink : Where the result is sent.
+	 * @param findRoots : Whether the roots of the answer are found and sent along with it.
+	 * @return : The Polynomial holding the answer, or null if the record was skipped.
+	 * @throws IOException : If an earlier write to the sink failed.
+	 */
+	public static Polynomial processRecord(String firstPoly, String secondPoly, String op, ResultSink sink, boolean findRoots) throws IOException{
+		//If any of the inputs were null, the record is skipped.
+		if(firstPoly == null || secondPoly == null || op == null){
+			sink.error("Each operation requires three lines of input.");
+			return null;
 		}
+		
+		//Creates an instance of the Polynomial class, with the firstPoly, secondPoly and op values
+		Polynomial poly = new Polynomial(firstPoly, secondPoly, op);
+		
+		RootFinder.Roots roots = null;
+		if(findRoots && poly.isValid())
+			roots = RootFinder.findRoots(PackedPolynomial.fromList(poly.getAnswerPolynomial()));
+		
+		//Sends the polynomials in the correct format, as well as the answer.
+		sink.result(poly, roots);
+		return poly;
 	}
 }
@@ -0,0 +1,48 @@
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Somewhere the results of the records are sent to once they've been computed. Polynomials collect their
+ * formatted operands, errors and answer as data, and it's up to the sink to decide how they're written.
+ * 
+ * Results are written in the order they are given to the sink. Nothing is guaranteed to have been
+ * written until the sink is closed.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public interface ResultSink extends Closeable {
+	
+	/**
+	 * Sends the result of one record.
+	 * 
+	 * @param poly : The computed Polynomial, valid or not.
+	 * @param roots : The roots of the answer, or null if they weren't asked for.
+	 * @throws IOException : If an earlier write failed.
+	 */
+	void result(Polynomial poly, RootFinder.Roots roots) throws IOException;
+	
+	/**
+	 * Sends whether one record is valid, without its answer.
+	 * 
+	 * @param recordNumber : The position of the record in the input, starting at 1.
+	 * @param poly : The Polynomial of the record. Only its errors are needed, so it may be lazy.
+	 * @throws IOException : If an earlier write failed.
+	 */
+	void validated(int recordNumber, Polynomial poly) throws IOException;
+	
+	/**
+	 * Sends an error that isn't part of any Polynomial, such as a record that is missing lines.
+	 * 
+	 * @param message : The error message.
+	 * @throws IOException : If an earlier write failed.
+	 */
+	void error(String message) throws IOException;
+	
+	/**
+	 * Writes out everything that has been sent and closes the output.
+	 * 
+	 * @throws IOException : If any write failed.
+	 */
+	void close() throws IOException;
+}
@@ -0,0 +1,88 @@
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Keeps the formatted result of every record that has been computed, on disk, keyed by a hash of the
+ * record's three lines. A record that has been seen before, in any file, can then be answered without
+ * being parsed or computed again.
+ * 
+ * Each result is a file in the store's directory, named after the hash. Results are written to a
+ * temporary file first and then moved into place, so a reader never sees half of one.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class ResultStore {
+	
+	//Part of every key, so that results formatted by an older version of the output are never reused
+	static final String FORMAT_VERSION = "text/1";
+	
+	Path directory;
+	
+	/**
+	 * Opens the store in the given directory, creating it if needed.
+	 * 
+	 * @param directory : Where the results are kept.
+	 * @throws IOException : If the directory could not be created.
+	 */
+	public ResultStore(Path directory) throws IOException{
+		this.directory = Files.createDirectories(directory);
+	}
+	
+	/**
+	 * @return : The key of a record, a SHA-256 hash of its three lines in hexadecimal.
+	 */
+	public static String key(String firstPoly, String secondPoly, String op){
+		try{
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			byte[] hash = digest.digest((FORMAT_VERSION + "\n" + firstPoly + "\n" + secondPoly + "\n" + op)
+					.getBytes(StandardCharsets.UTF_8));
+			StringBuilder hex = new StringBuilder();
+			for(byte b : hash)
+				hex.append(String.format("%02x", b));
+			return hex.toString();
+		}
+		catch(NoSuchAlgorithmException e){
+			//Every Java platform is required to support SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+	
+	/**
+	 * @param key : The key of a record.
+	 * @return : The stored result, or null if the record hasn't been stored.
+	 * @throws IOException : If the stored result could not be read.
+	 */
+	public byte[] get(String key) throws IOException{
+		try{
+			return Files.readAllBytes(directory.resolve(key));
+		}
+		catch(NoSuchFileException e){
+			return null;
+		}
+	}
+	
+	/**
+	 * Stores the result of a record, replacing any earlier result for the same key.
+	 * 
+	 * @param key : The key of the record.
+	 * @param result : The formatted result.
+	 * @throws IOException : If the result could not be written.
+	 */
+	public void put(String key, byte[] result) throws IOException{
+		Path temp = Files.createTempFile(directory, key, ".tmp");
+		try{
+			Files.write(temp, result);
+			Files.move(temp, directory.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally{
+			Files.deleteIfExists(temp);
+		}
+	}
+}
@@ -0,0 +1,270 @@
+import java.util.stream.IntStream;
+
+/**
+ * Finds all of the complex roots of a polynomial at once using the Aberth-Ehrlich method.
+ * 
+ * Every root estimate is improved on each pass using Newton's correction p(z)/p'(z), adjusted so that the
+ * estimates push away from each other and don't all converge on the same root. p and p' are evaluated
+ * together with Horner's method, on dense coefficient arrays, and complex numbers are kept as separate
+ * arrays of real and imaginary parts.
+ * 
+ * Terms with negative exponents are allowed. The polynomial is divided through by its lowest power of x
+ * first, so x = 0 is only reported as a root if every exponent was positive.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class RootFinder {
+	
+	//The largest number of passes over the estimates before giving up
+	static final int MAX_ITERATIONS = 500;
+	
+	//A root has converged once its correction is this small relative to its size
+	static final double TOLERANCE = 1e-14;
+	
+	//The highest degree roots are looked for. Each pass costs the square of the degree, and the dense
+	//coefficients and the roots take memory in proportion to it.
+	static final int MAX_DEGREE = 4096;
+	
+	/**
+	 * The roots of one polynomial, along with how well they were found.
+	 */
+	public static class Roots {
+		//The real and imaginary parts of each root
+		public double[] real, imaginary;
+		
+		//The size of the last correction made to each root, an estimate of how far it is from the true root
+		public double[] errorEstimate;
+		
+		//|p(z)| divided by the sum of |a_i||z|^i for each root. This is the smallest relative change to the
+		//coefficients that would make the root exact.
+		public double[] backwardError;
+		
+		public int iterations;
+		public boolean converged;
+		
+		//Set when the polynomial's degree was over MAX_DEGREE, in which case no roots were looked for
+		public boolean tooLarge;
+		public long degree;
+		
+		Roots(int n){
+			real = new double[n];
+			imaginary = new double[n];
+			errorEstimate = new double[n];
+			backwardError = new double[n];
+		}
+		
+		public int count(){
+			return real.length;
+		}
+		
+		/**
+		 * Lists the roots one per line, each followed by its error estimates.
+		 */
+		public String toString(){
+			String formatted = "Roots:";
+			if(tooLarge)
+				return formatted + " not found, the degree " + degree + " is larger than " + MAX_DEGREE + ".";
+			if(count() == 0)
+				formatted += " none";
+			for(int i = 0; i < count(); i++){
+				formatted += "\n" + real[i] + (imaginary[i] < 0 ? " - " : " + ") + Math.abs(imaginary[i]) + "i"
+						+ "  (error " + errorEstimate[i] + ", backward error " + backwardError[i] + ")";
+			}
+			if(!converged)
+				formatted += "\nDid not converge after " + iterations + " iterations.";
+			return formatted;
+		}
+	}
+	
+	/**
+	 * Finds the roots of a polynomial.
+	 * 
+	 * @param poly : The polynomial, in descending exponent order with no repeated exponents.
+	 * @return : Its roots and the error report for them.
+	 */
+	public static Roots findRoots(PackedPolynomial poly){
+		//Drops any leading terms whose coefficients are zero, as they don't add roots
+		int start = 0;
+		while(start < poly.size() && poly.getCoefficient(start) == 0)
+			start++;
+		
+		//Likewise, trailing zero terms are dropped before finding the lowest power of x
+		int end = poly.size();
+		while(end > start && poly.getCoefficient(end - 1) == 0)
+			end--;
+		
+		//There is one root per power from the lowest (or x^0 if it's negative) up to the highest, so the
+		//degree is checked before anything of that size is allocated
+		long lowest = end > start ? poly.getExponent(end - 1) : 0;
+		long highest = end > start ? poly.getExponent(start) : 0;
+		long rootCount = highest - Math.min(lowest, 0);
+		if(rootCount > MAX_DEGREE){
+			Roots roots = new Roots(0);
+			roots.tooLarge = true;
+			roots.degree = rootCount;
+			return roots;
+		}
+		
+		if(end - start <= 1){
+			Roots roots = zeroRoots((int) highest);
+			roots.converged = true;
+			return roots;
+		}
+		
+		//Divides through by x^lowest, leaving dense coefficients indexed by power with a nonzero constant
+		int degree = (int) (highest - lowest);
+		double[] coefficients = new double[degree + 1];
+		for(int i = start; i < end; i++)
+			coefficients[(int) (poly.getExponent(i) - lowest)] += poly.getCoefficient(i);
+		
+		Roots found = aberth(coefficients);
+		if(lowest <= 0)
+			return found;
+		
+		//A positive lowest power means x = 0 is a root that many times. These are left at zero after the others.
+		Roots all = new Roots(found.count() + (int) lowest);
+		System.arraycopy(found.real, 0, all.real, 0, found.count());
+		System.arraycopy(found.imaginary, 0, all.imaginary, 0, found.count());
+		System.arraycopy(found.errorEstimate, 0, all.errorEstimate, 0, found.count());
+		System.arraycopy(found.backwardError, 0, all.backwardError, 0, found.count());
+		all.iterations = found.iterations;
+		all.converged = found.converged;
+		return all;
+	}
+	
+	/**
+	 * Finds the roots of many polynomials, spread across the threads of the common ForkJoinPool.
+	 * 
+	 * @param polys : The polynomials, each in descending exponent order with no repeated exponents.
+	 * @return : The roots of each polynomial, in the same order.
+	 */
+	public static Roots[] findRoots(PackedPolynomial[] polys){
+		Roots[] roots = new Roots[polys.length];
+		IntStream.range(0, polys.length).parallel().forEach(i -> roots[i] = findRoots(polys[i]));
+		return roots;
+	}
+	
+	/**
+	 * @return : n roots at x = 0, with no error.
+	 */
+	static Roots zeroRoots(int n){
+		return new Roots(Math.max(0, n));
+	}
+	
+	/**
+	 * Runs the Aberth-Ehrlich iteration on dense coefficients.
+	 * 
+	 * @param a : The coefficients, a[i] being the coefficient of x^i. Both a[0] and the last are nonzero.
+	 * @return : The roots of the polynomial.
+	 */
+	static Roots aberth(double[] a){
+		int n = a.length - 1;
+		Roots roots = new Roots(n);
+		double[] re = roots.real, im = roots.imaginary;
+		
+		//Starts the estimates evenly around a circle whose radius is the geometric mean of the roots'
+		//sizes. The angle is offset so no estimate starts on the real axis, where conjugate pairs can't separate.
+		double radius = Math.pow(Math.abs(a[0] / a[n]), 1.0 / n);
+		for(int k = 0; k < n; k++){
+			double angle = 2 * Math.PI * k / n + 0.4;
+			re[k] = radius * Math.cos(angle);
+			im[k] = radius * Math.sin(angle);
+		}
+		
+		boolean[] done = new boolean[n];
+		int remaining = n;
+		int iteration = 0;
+		while(remaining > 0 && iteration < MAX_ITERATIONS){
+			iteration++;
+			for(int k = 0; k < n; k++){
+				if(done[k])
+					continue;
+				
+				//Horner's method for p(z) and p'(z) together
+				double zr = re[k], zi = im[k];
+				double pr = a[n], pi = 0, dr = 0, di = 0;
+				for(int i = n - 1; i >= 0; i--){
+					double t = dr * zr - di * zi + pr;
+					di = dr * zi + di * zr + pi;
+					dr = t;
+					t = pr * zr - pi * zi + a[i];
+					pi = pr * zi + pi * zr;
+					pr = t;
+				}
+				if(pr == 0 && pi == 0){
+					done[k] = true;
+					remaining--;
+					continue;
+				}
+				
+				//ratio = p(z) / p'(z)
+				double denominator = dr * dr + di * di;
+				double ratioR, ratioI;
+				if(denominator == 0){
+					//A critical point, nudge the estimate instead of dividing by zero
+					ratioR = radius * 1e-3;
+					ratioI = radius * 1e-3;
+				}
+				else{
+					ratioR = (pr * dr + pi * di) / denominator;
+					ratioI = (pi * dr - pr * di) / denominator;
+				}
+				
+				//sum = the sum over the other estimates of 1 / (z_k - z_j)
+				double sumR = 0, sumI = 0;
+				for(int j = 0; j < n; j++){
+					if(j == k)
+						continue;
+					double differenceR = zr - re[j], differenceI = zi - im[j];
+					double size = differenceR * differenceR + differenceI * differenceI;
+					if(size == 0)
+						continue;
+					sumR += differenceR / size;
+					sumI -= differenceI / size;
+				}
+				
+				//correction = ratio / (1 - ratio * sum)
+				double bottomR = 1 - (ratioR * sumR - ratioI * sumI);
+				double bottomI = -(ratioR * sumI + ratioI * sumR);
+				double bottomSize = bottomR * bottomR + bottomI * bottomI;
+				double correctionR = ratioR, correctionI = ratioI;
+				if(bottomSize != 0){
+					correctionR = (ratioR * bottomR + ratioI * bottomI) / bottomSize;
+					correctionI = (ratioI * bottomR - ratioR * bottomI) / bottomSize;
+				}
+				re[k] = zr - correctionR;
+				im[k] = zi - correctionI;
+				
+				double correction = Math.hypot(correctionR, correctionI);
+				roots.errorEstimate[k] = correction;
+				if(correction <= TOLERANCE * Math.hypot(re[k], im[k]) || correction == 0){
+					done[k] = true;
+					remaining--;
+				}
+			}
+		}
+		roots.iterations = iteration;
+		roots.converged = remaining == 0;
+		
+		for(int k = 0; k < n; k++)
+			roots.backwardError[k] = backwardError(a, re[k], im[k]);
+		return roots;
+	}
+	
+	/**
+	 * @return : |p(z)| divided by the sum of |a_i||z|^i.
+	 */
+	static double backwardError(double[] a, double zr, double zi){
+		int n = a.length - 1;
+		double pr = a[n], pi = 0, bound = Math.abs(a[n]);
+		double size = Math.hypot(zr, zi);
+		for(int i = n - 1; i >= 0; i--){
+			double t = pr * zr - pi * zi + a[i];
+			pi = pr * zi + pi * zr;
+			pr = t;
+			bound = bound * size + Math.abs(a[i]);
+		}
+		return bound == 0 ? 0 : Math.hypot(pr, pi) / bound;
+	}
+}
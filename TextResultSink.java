@@ -0,0 +1,65 @@
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes results as the same plain text Project1 has always printed: the formatted polynomials and
+ * operation (or the errors that stopped them being computed), the answer, and a blank line.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class TextResultSink extends BufferedResultSink {
+	
+	public TextResultSink(WritableByteChannel channel){
+		super(channel);
+	}
+	
+	public TextResultSink(WritableByteChannel channel, int queueSize, int bufferSize){
+		super(channel, queueSize, bufferSize);
+	}
+	
+	byte[] encodeResult(Polynomial poly, RootFinder.Roots roots){
+		return render(poly, roots);
+	}
+	
+	byte[] encodeError(String message){
+		return renderError(message);
+	}
+	
+	/**
+	 * Writes "Record n is valid." or "Record n is invalid:" followed by its errors, and a blank line.
+	 */
+	byte[] encodeValidation(int recordNumber, Polynomial poly){
+		StringBuilder text = new StringBuilder("Record " + recordNumber);
+		text.append(poly.isValid() ? " is valid.\n" : " is invalid:\n");
+		for(String error : poly.getErrors())
+			text.append(error).append("\n");
+		return text.append("\n").toString().getBytes(StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Formats one result as text, without going through a sink.
+	 * 
+	 * @param poly : The computed Polynomial.
+	 * @param roots : The roots of its answer, or null.
+	 * @return : The text, encoded as UTF-8.
+	 */
+	static byte[] render(Polynomial poly, RootFinder.Roots roots){
+		StringBuilder text = new StringBuilder();
+		if(poly.isValid())
+			text.append(poly.getFormattedPolynomials()).append("\n");
+		for(String error : poly.getErrors())
+			text.append(error).append("\n");
+		text.append(poly.toString()).append("\n\n");
+		if(roots != null)
+			text.append(roots.toString()).append("\n\n");
+		return text.toString().getBytes(StandardCharsets.UTF_8);
+	}
+	
+	/**
+	 * Formats an error that isn't part of any Polynomial as text, without going through a sink.
+	 */
+	static byte[] renderError(String message){
+		return (message + "\n").getBytes(StandardCharsets.UTF_8);
+	}
+}
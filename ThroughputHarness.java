@@ -0,0 +1,297 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures how fast the batch driver gets through a whole input file at several thread counts. Records go
+ * through Project1.processRecords into a ResultSink, the same way Project1 runs them, so the writer
+ * thread, the sink's queue and its batched writes are all part of the measurement. The output is
+ * encoded and then thrown away instead of being written anywhere.
+ * 
+ * Usage: java ThroughputHarness <input file> [thread counts, e.g. 1,2,4,8] [warmup passes] [text | jsonl | binary]
+ * 
+ * The records are read into memory first, so the file isn't part of the measurement. With several
+ * threads, the records are split into that many runs of consecutive records, and each thread runs its
+ * own batch driver and sink over one of them, as separate Project1 processes would. Each thread count
+ * gets the warmup passes, which aren't measured, and then one measured pass. For each pass the harness
+ * reports records per second, latency percentiles for each operation (invalid records are counted
+ * separately), the peak heap use, and the time spent in garbage collection.
+ * 
+ * A record's latency is the time from when the driver finished handing the previous record to the sink
+ * until it finished handing over this one. That covers reading, parsing, computing and any wait for
+ * room in the sink's queue.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class ThroughputHarness {
+	
+	//The latency of each record is filed under one of these
+	static final String[] CATEGORIES = {"add", "subtract", "multiply", "multiplymod", "invalid"};
+	
+	String[][] records;
+	String format;
+	
+	/**
+	 * @param records : Each record's three lines.
+	 * @param format : The format of the sink the results are sent to, as for Project1's -format option.
+	 */
+	public ThroughputHarness(String[][] records, String format){
+		this.records = records;
+		this.format = format;
+	}
+	
+	public static void main(String[] args){
+		if(args.length < 1){
+			System.out.println("Usage: java ThroughputHarness <input file> [thread counts, e.g. 1,2,4,8] [warmup passes] [text | jsonl | binary]");
+			return;
+		}
+		String[] threadCounts = (args.length > 1 ? args[1] : "1," + Runtime.getRuntime().availableProcessors()).split(",");
+		int warmups = args.length > 2 ? Integer.parseInt(args[2]) : 1;
+		String format = args.length > 3 ? args[3] : "text";
+		
+		try{
+			ThroughputHarness harness = new ThroughputHarness(readRecords(args[0]), format);
+			System.out.println(harness.records.length + " records");
+			for(String threads : threadCounts){
+				for(int i = 0; i < warmups; i++)
+					harness.run(Integer.parseInt(threads.trim()));
+				System.out.println(harness.run(Integer.parseInt(threads.trim())));
+			}
+		}
+		catch(IOException e){
+			System.out.println("Could not run the records: " + e.getMessage());
+		}
+		catch(InterruptedException e){
+			System.out.println("Interrupted");
+		}
+	}
+	
+	/**
+	 * Reads every complete three-line record of a file.
+	 */
+	static String[][] readRecords(String fileName) throws IOException{
+		ArrayList<String[]> records = new ArrayList<String[]>();
+		try(BufferedReader br = new BufferedReader(new FileReader(fileName))){
+			String line;
+			while((line = br.readLine()) != null){
+				String second = br.readLine();
+				String op = br.readLine();
+				if(second != null && op != null)
+					records.add(new String[]{line, second, op});
+			}
+		}
+		return records.toArray(new String[0][]);
+	}
+	
+	/**
+	 * Processes every record once on the given number of threads.
+	 * 
+	 * @param threads : The number of batch drivers, each with its own share of the records.
+	 * @return : A report of the pass.
+	 * @throws IOException : If a driver or its sink failed.
+	 * @throws InterruptedException : If interrupted while waiting for the threads.
+	 */
+	public String run(int threads) throws IOException, InterruptedException{
+		long[] latencies = new long[records.length];
+		int[] categories = new int[records.length];
+		
+		//Each thread gets a run of consecutive records, as the text of an input file
+		int[] starts = new int[threads + 1];
+		String[] shares = new String[threads];
+		for(int t = 0; t < threads; t++){
+			starts[t + 1] = (int) ((long) records.length * (t + 1) / threads);
+			StringBuilder text = new StringBuilder();
+			for(int i = starts[t]; i < starts[t + 1]; i++)
+				text.append(records[i][0]).append('\n').append(records[i][1]).append('\n').append(records[i][2]).append('\n');
+			shares[t] = text.toString();
+		}
+		
+		//Counting the output both shows how much was produced and makes sure the encoding isn't skipped
+		AtomicLong outputBytes = new AtomicLong();
+		AtomicReference<IOException> failure = new AtomicReference<IOException>();
+		
+		System.gc();
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			pool.resetPeakUsage();
+		long gcBefore = gcTime();
+		long start = System.nanoTime();
+		
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		for(int t = 0; t < threads; t++){
+			int share = t;
+			executor.execute(() -> {
+				try(BufferedReader br = new BufferedReader(new StringReader(shares[share]));
+						TimingSink sink = new TimingSink(Project1.createSink(format, new DiscardingChannel(outputBytes)),
+								starts[share], latencies, categories)){
+					Project1.processRecords(br, sink, null, false);
+				}
+				catch(IOException e){
+					failure.compareAndSet(null, e);
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		if(failure.get() != null)
+			throw failure.get();
+		
+		long elapsed = System.nanoTime() - start;
+		long gcAfter = gcTime();
+		
+		String report = String.format("%d threads: %.1f records/s, %d bytes of output, peak heap %.1f MB, GC %d ms%n",
+				threads, records.length / (elapsed / 1e9), outputBytes.get(), peakHeap() / 1048576.0, gcAfter - gcBefore);
+		for(int c = 0; c < CATEGORIES.length; c++)
+			report += latencyReport(c, latencies, categories);
+		return report;
+	}
+	
+	/**
+	 * Passes everything on to another sink, and records the latency and category of each result. Every
+	 * record the harness sends is complete, so each one arrives as exactly one result, in order.
+	 */
+	class TimingSink implements ResultSink {
+		ResultSink sink;
+		int next;
+		long[] latencies;
+		int[] categories;
+		long last = System.nanoTime();
+		
+		/**
+		 * @param sink : The sink the results are passed on to.
+		 * @param first : The index of the first record this sink receives.
+		 */
+		TimingSink(ResultSink sink, int first, long[] latencies, int[] categories){
+			this.sink = sink;
+			this.next = first;
+			this.latencies = latencies;
+			this.categories = categories;
+		}
+		
+		public void result(Polynomial poly, RootFinder.Roots roots) throws IOException{
+			sink.result(poly, roots);
+			long now = System.nanoTime();
+			latencies[next] = now - last;
+			categories[next] = poly.isValid() ? category(records[next][2]) : CATEGORIES.length - 1;
+			next++;
+			last = now;
+		}
+		
+		public void validated(int recordNumber, Polynomial poly) throws IOException{
+			sink.validated(recordNumber, poly);
+		}
+		
+		public void error(String message) throws IOException{
+			sink.error(message);
+		}
+		
+		public void close() throws IOException{
+			sink.close();
+		}
+	}
+	
+	/**
+	 * A channel that counts the bytes written to it and throws them away.
+	 */
+	static class DiscardingChannel implements WritableByteChannel {
+		AtomicLong written;
+		
+		DiscardingChannel(AtomicLong written){
+			this.written = written;
+		}
+		
+		public int write(ByteBuffer src){
+			int n = src.remaining();
+			src.position(src.limit());
+			written.addAndGet(n);
+			return n;
+		}
+		
+		public boolean isOpen(){
+			return true;
+		}
+		
+		public void close(){
+		}
+	}
+	
+	/**
+	 * @return : The index in CATEGORIES of a valid operation string.
+	 */
+	static int category(String op){
+		String name = op.replace(" ", "").toLowerCase();
+		
+		//Truncated multiplications are filed together, whatever their order
+		if(new PolynomialHelper().truncationOrder(op) >= 0)
+			name = "multiplymod";
+		for(int c = 0; c < CATEGORIES.length - 1; c++){
+			if(CATEGORIES[c].equals(name))
+				return c;
+		}
+		return CATEGORIES.length - 1;
+	}
+	
+	/**
+	 * @return : A line with the count and latency percentiles of one category, in microseconds.
+	 */
+	static String latencyReport(int category, long[] latencies, int[] categories){
+		int count = 0;
+		for(int c : categories){
+			if(c == category)
+				count++;
+		}
+		if(count == 0)
+			return "";
+		
+		long[] sorted = new long[count];
+		count = 0;
+		for(int i = 0; i < latencies.length; i++){
+			if(categories[i] == category)
+				sorted[count++] = latencies[i];
+		}
+		Arrays.sort(sorted);
+		return String.format("  %-11s %7d records   p50 %10.1f us   p90 %10.1f us   p99 %10.1f us   max %10.1f us%n",
+				CATEGORIES[category], count, percentile(sorted, 0.50) / 1e3, percentile(sorted, 0.90) / 1e3,
+				percentile(sorted, 0.99) / 1e3, sorted[count - 1] / 1e3);
+	}
+	
+	static long percentile(long[] sorted, double fraction){
+		return sorted[(int) Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1)];
+	}
+	
+	/**
+	 * @return : The total milliseconds spent in garbage collection so far.
+	 */
+	static long gcTime(){
+		long total = 0;
+		for(GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans())
+			total += Math.max(0, gc.getCollectionTime());
+		return total;
+	}
+	
+	/**
+	 * @return : The sum of the peak use of every heap pool since the peaks were last reset.
+	 */
+	static long peakHeap(){
+		long total = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()){
+			if(pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null)
+				total += pool.getPeakUsage().getUsed();
+		}
+		return total;
+	}
+}
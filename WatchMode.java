@@ -0,0 +1,197 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches a directory of input files, and every time one is created or changed, writes its results to
+ * a file of the same name (plus ".out") in an output directory.
+ * 
+ * Results are kept in a ResultStore under the output directory, keyed by a hash of each record's three
+ * lines. When a file changes, only the records that are new or were edited are computed; the results of
+ * the rest are copied straight from the store.
+ * 
+ * Records that read a polynomial from a binary file with '@' are always computed, since their result can
+ * change without the record itself changing.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class WatchMode {
+	
+	//How long a changed file has to go without further events before it's processed, so that a file
+	//that is still being written isn't read half way through
+	static final long SETTLE_MILLIS = 250;
+	
+	Path inputDir, outputDir;
+	ResultStore store;
+	
+	/**
+	 * @param inputDir : The directory of input files to watch.
+	 * @param outputDir : The directory results are written to. The store is kept in its ".store" directory.
+	 * It can't be the input directory or inside it, as every result written would be seen as a change.
+	 * @throws IOException : If the output directory is inside the input directory, or the output
+	 * directory or the store could not be created.
+	 */
+	public WatchMode(Path inputDir, Path outputDir) throws IOException{
+		checkOutsideInput(inputDir, outputDir);
+		this.inputDir = inputDir;
+		this.outputDir = Files.createDirectories(outputDir);
+		
+		//Checked again now that both exist, in case a symbolic link leads back into the input
+		checkOutsideInput(inputDir.toRealPath(), this.outputDir.toRealPath());
+		store = new ResultStore(outputDir.resolve(".store"));
+	}
+	
+	static void checkOutsideInput(Path inputDir, Path outputDir) throws IOException{
+		if(outputDir.toAbsolutePath().normalize().startsWith(inputDir.toAbsolutePath().normalize()))
+			throw new IOException("The output directory can't be the input directory or inside it");
+	}
+	
+	public static void main(String[] args){
+		if(args.length != 2){
+			System.out.println("Usage: java WatchMode <input directory> <output directory>");
+			return;
+		}
+		try{
+			new WatchMode(Paths.get(args[0]), Paths.get(args[1])).watch();
+		}
+		catch(IOException e){
+			System.out.println("Could not watch '" + args[0] + "': " + e.getMessage());
+		}
+		catch(InterruptedException e){
+			System.out.println("Stopped watching '" + args[0] + "'");
+		}
+	}
+	
+	/**
+	 * Processes every file already in the input directory, then waits for files to be created or changed
+	 * and processes them once they have settled, until interrupted.
+	 * 
+	 * @throws IOException : If the directory could not be watched.
+	 * @throws InterruptedException : When the thread is interrupted while waiting.
+	 */
+	public void watch() throws IOException, InterruptedException{
+		try(WatchService watcher = inputDir.getFileSystem().newWatchService()){
+			inputDir.register(watcher, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+			processAll();
+			
+			while(true){
+				WatchKey key = watcher.take();
+				
+				//An editor saving a file often causes several events, and a file being written causes more
+				//until it's finished. Events are collected until none arrive for SETTLE_MILLIS, and each
+				//file is then only processed once.
+				TreeSet<Path> changed = new TreeSet<Path>();
+				boolean overflow = false;
+				while(key != null){
+					for(WatchEvent<?> event : key.pollEvents()){
+						if(event.kind() == StandardWatchEventKinds.OVERFLOW)
+							overflow = true;
+						else
+							changed.add(inputDir.resolve((Path) event.context()));
+					}
+					if(!key.reset())
+						throw new IOException("The input directory is no longer accessible");
+					key = watcher.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS);
+				}
+				if(overflow)
+					processAll();
+				else{
+					for(Path file : changed){
+						if(Files.isRegularFile(file))
+							processReporting(file);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Processes every file in the input directory.
+	 */
+	void processAll() throws IOException{
+		try(DirectoryStream<Path> files = Files.newDirectoryStream(inputDir)){
+			for(Path file : files){
+				if(Files.isRegularFile(file))
+					processReporting(file);
+			}
+		}
+	}
+	
+	/**
+	 * Processes a file, printing a summary, or the error if it couldn't be processed. One bad file
+	 * doesn't stop the others being watched.
+	 */
+	void processReporting(Path file){
+		try{
+			int[] counts = process(file);
+			System.out.println(file.getFileName() + ": " + counts[0] + " records, " + counts[1] + " from the store, "
+					+ (counts[0] - counts[1]) + " computed");
+		}
+		catch(IOException e){
+			System.out.println(file.getFileName() + ": " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Writes the results of every record in an input file to its output file, computing only the records
+	 * that aren't in the store.
+	 * 
+	 * @param file : The input file.
+	 * @return : The number of records, and how many of them came from the store.
+	 * @throws IOException : If the file could not be read or its results could not be written.
+	 */
+	public int[] process(Path file) throws IOException{
+		int records = 0, fromStore = 0;
+		Path outputFile = outputDir.resolve(file.getFileName() + ".out");
+		Path temp = Files.createTempFile(outputDir, file.getFileName().toString(), ".tmp");
+		
+		try(BufferedReader br = Files.newBufferedReader(file, StandardCharsets.UTF_8);
+				OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)){
+			String line = br.readLine();
+			while(line != null){
+				String secondPoly = br.readLine();
+				String op = br.readLine();
+				records++;
+				
+				if(secondPoly == null || op == null)
+					out.write(TextResultSink.renderError("Each operation requires three lines of input."));
+				else if(line.trim().startsWith("@") || secondPoly.trim().startsWith("@"))
+					out.write(TextResultSink.render(new Polynomial(line, secondPoly, op), null));
+				else{
+					String key = ResultStore.key(line, secondPoly, op);
+					byte[] result = store.get(key);
+					if(result != null)
+						fromStore++;
+					else{
+						result = TextResultSink.render(new Polynomial(line, secondPoly, op), null);
+						store.put(key, result);
+					}
+					out.write(result);
+				}
+				line = br.readLine();
+			}
+		}
+		catch(IOException e){
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		
+		//Replaces the old output all at once, so it's never seen half written
+		Files.move(temp, outputFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return new int[]{records, fromStore};
+	}
+}
@@ -0,0 +1,161 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Random;
+
+/**
+ * Writes input files in Project1's three-line format for measuring how the calculator performs on
+ * realistic batches. The same settings and seed always produce the same file.
+ * 
+ * Usage: java WorkloadGenerator <output file> <records> [options], where the options are
+ * 
+ * 		-seed n				the random seed (default 1)
+ * 		-min-terms n		the fewest terms in a polynomial (default 1)
+ * 		-max-terms n		the most terms in a polynomial (default 1000)
+ * 		-skew s				how strongly sizes lean towards min-terms; 1 is uniform (default 3)
+ * 		-density d			terms divided by the range of exponents, between 0 and 1 (default 0.5)
+ * 		-mix a:s:m			relative weights of add, subtract and multiply (default 1:1:1)
+ * 		-error-rate r		the fraction of records with a mistake in them (default 0.05)
+ * 
+ * A record with a mistake has one of: an odd number of numbers, a word where a number should be, a
+ * decimal exponent, or an unknown operation, like the invalid entries in project1.txt.
+ * 
+ * @author Steven Wojsnis
+ *
+ */
+public class WorkloadGenerator {
+	
+	static final String[] OPERATIONS = {"add", "subtract", "multiply"};
+	
+	Random random;
+	int minTerms = 1, maxTerms = 1000;
+	double skew = 3, density = 0.5, errorRate = 0.05;
+	double[] mix = {1, 1, 1};
+	
+	public WorkloadGenerator(long seed){
+		random = new Random(seed);
+	}
+	
+	public static void main(String[] args){
+		if(args.length < 2){
+			System.out.println("Usage: java WorkloadGenerator <output file> <records> [-seed n] [-min-terms n] [-max-terms n]"
+					+ " [-skew s] [-density d] [-mix a:s:m] [-error-rate r]");
+			return;
+		}
+		try{
+			long seed = 1;
+			for(int i = 2; i + 1 < args.length; i += 2){
+				if(args[i].equals("-seed"))
+					seed = Long.parseLong(args[i + 1]);
+			}
+			WorkloadGenerator generator = new WorkloadGenerator(seed);
+			for(int i = 2; i + 1 < args.length; i += 2)
+				generator.setOption(args[i], args[i + 1]);
+			generator.write(args[0], Integer.parseInt(args[1]));
+		}
+		catch(IOException | IllegalArgumentException e){
+			System.out.println("Could not generate the workload: " + e.getMessage());
+		}
+	}
+	
+	/**
+	 * Sets one of the command line options.
+	 * 
+	 * @throws IllegalArgumentException : If the option is unknown or its value is invalid.
+	 */
+	void setOption(String option, String value) throws IllegalArgumentException{
+		if(option.equals("-seed"))
+			return;
+		else if(option.equals("-min-terms"))
+			minTerms = Integer.parseInt(value);
+		else if(option.equals("-max-terms"))
+			maxTerms = Integer.parseInt(value);
+		else if(option.equals("-skew"))
+			skew = Double.parseDouble(value);
+		else if(option.equals("-density"))
+			density = Double.parseDouble(value);
+		else if(option.equals("-error-rate"))
+			errorRate = Double.parseDouble(value);
+		else if(option.equals("-mix")){
+			String[] weights = value.split(":");
+			if(weights.length != 3)
+				throw new IllegalArgumentException("The mix needs three weights, for add, subtract and multiply");
+			for(int i = 0; i < 3; i++)
+				mix[i] = Double.parseDouble(weights[i]);
+		}
+		else
+			throw new IllegalArgumentException("Unknown option " + option);
+		
+		if(minTerms < 1 || maxTerms < minTerms || skew <= 0 || density <= 0 || density > 1 || errorRate < 0 || errorRate > 1)
+			throw new IllegalArgumentException("Invalid value " + value + " for " + option);
+	}
+	
+	/**
+	 * Writes the given number of records to a file.
+	 * 
+	 * @param fileName : The file to write, replaced if it exists.
+	 * @param records : The number of three-line records.
+	 * @throws IOException : If the file could not be written.
+	 */
+	public void write(String fileName, int records) throws IOException{
+		try(BufferedWriter out = Files.newBufferedWriter(Paths.get(fileName), StandardCharsets.UTF_8)){
+			for(int i = 0; i < records; i++){
+				String first = polynomial();
+				String second = polynomial();
+				String op = operation();
+				
+				if(random.nextDouble() < errorRate){
+					switch(random.nextInt(4)){
+						case 0: first = first + " 1"; break;
+						case 1: second = "x " + second; break;
+						case 2: first = first + " 1 2.5"; break;
+						default: op = op + "f";
+					}
+				}
+				out.write(first);
+				out.newLine();
+				out.write(second);
+				out.newLine();
+				out.write(op);
+				out.newLine();
+			}
+		}
+	}
+	
+	/**
+	 * @return : A random polynomial line. Its size is skewed towards minTerms, and its exponents are
+	 * spread over a range of about terms / density.
+	 */
+	String polynomial(){
+		int terms = minTerms + (int) ((maxTerms - minTerms + 1) * Math.pow(random.nextDouble(), skew));
+		terms = Math.min(terms, maxTerms);
+		int range = Math.max(1, (int) Math.ceil(terms / density));
+		
+		StringBuilder line = new StringBuilder();
+		for(int i = 0; i < terms; i++){
+			if(i > 0)
+				line.append(' ');
+			//Mostly whole coefficients, like hand-written input, with the odd decimal
+			if(random.nextInt(4) == 0)
+				line.append(Math.round((random.nextDouble() * 20 - 10) * 100) / 100.0);
+			else
+				line.append(random.nextInt(19) - 9);
+			line.append(' ').append(random.nextInt(range));
+		}
+		return line.toString();
+	}
+	
+	/**
+	 * @return : An operation picked according to the mix.
+	 */
+	String operation(){
+		double pick = random.nextDouble() * (mix[0] + mix[1] + mix[2]);
+		if(pick < mix[0])
+			return OPERATIONS[0];
+		else if(pick < mix[0] + mix[1])
+			return OPERATIONS[1];
+		return OPERATIONS[2];
+	}
+}